@@ -1,7 +1,8 @@
 package de.hsfd.binary_tree;
 
+import de.hsfd.binary_tree.driver.TraceReplay;
+import de.hsfd.binary_tree.services.ChangeLog;
 import de.hsfd.binary_tree.services.RBTree;
-import de.hsfd.binary_tree.services.exceptions.TreeException;
 import de.hsfd.binary_tree.services.wrapper.CharComparable;
 import de.hsfd.binary_tree.services.wrapper.IntComparable;
 
@@ -11,7 +12,11 @@ import java.util.Random;
 //TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
 // click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) { // e.g. "trace.txt --tree avl --threads 4", see TraceReplay
+            TraceReplay.main(args);
+            return;
+        }
         //TIP Press <shortcut actionId="ShowIntentionActions"/> with your caret at the highlighted text
         // to see how IntelliJ IDEA suggests fixing it.
         System.out.print("Hello and welcome!\nPlease refer yourself to the test files for more information about the implementation.\n");
@@ -19,22 +24,22 @@ public class Main {
 
         try {
             RBTree rbTreeInt = new RBTree();
+            // every insertion is a frame of the log, instead of writing the whole tree after each of them
+            ChangeLog changeLog = rbTreeInt.recordChanges();
             Random rand = new Random(15);
             for (int i = 1; i <= 15; i++) {
                 //TIP Press <shortcut actionId="Debug"/> to start debugging your code. We have set one <icon src="AllIcons.Debugger.Db_set_breakpoint"/> breakpoint
                 // for you, but you can always add more by pressing <shortcut actionId="ToggleLineBreakpoint"/>.
                 int randomValue = rand.nextInt(100);
-                try {
-                    rbTreeInt.insert(new IntComparable(randomValue));
-                } catch (TreeException e) {
-                    if(e.getMessage().equals("The value is already in the tree. No Parent will be returned")) {
-                        i--;
-                        continue;
-                    }
+                if (!rbTreeInt.add(new IntComparable(randomValue))) { // the value is already in the tree
+                    i--;
+                    continue;
                 }
                 System.out.println(i + ") inserted: " + randomValue);
-                rbTreeInt.exportDOT("15_nodes/input_" + i + ".dot");
+                changeLog.frame();
             }
+            // frame 0 is the empty tree before the first insertion
+            for (int i = 1; i < changeLog.frames(); i++) changeLog.exportDOT(i, "15_nodes/input_" + i + ".dot");
             System.out.println("File exported in folder 15_nodes!");
 
             RBTree tree = new RBTree();
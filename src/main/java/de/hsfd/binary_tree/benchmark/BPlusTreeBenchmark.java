@@ -0,0 +1,44 @@
+package de.hsfd.binary_tree.benchmark;
+
+import de.hsfd.binary_tree.services.BPlusTree;
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.SearchTree;
+import de.hsfd.binary_tree.services.wrapper.IntComparable;
+
+import java.util.Random;
+
+/**
+ * Compares the insert and lookup throughput of {@link BPlusTree} with {@link RBTree}.
+ * <p>Usage: {@code BPlusTreeBenchmark [keys,keys,...] [fanout] [lookups]},
+ * e.g. {@code 1000000,10000000,100000000 64} (the 100M case needs a large heap, e.g. -Xmx32g).</p>
+ */
+public class BPlusTreeBenchmark {
+    public static void main(String[] args) {
+        String[] sizes = (args.length > 0 ? args[0] : "1000000").split(",");
+        int fanout = args.length > 1 ? Integer.parseInt(args[1]) : BPlusTree.DEFAULT_FANOUT;
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 5_000_000;
+
+        for (String sizeArgument : sizes) {
+            int keys = Integer.parseInt(sizeArgument.trim());
+            Random random = new Random(30);
+            int[] values = FrozenTreeBenchmark.shuffledEvenKeys(keys, random);
+            IntComparable[] queries = new IntComparable[lookups];
+            for (int i = 0; i < lookups; i++) queries[i] = new IntComparable(random.nextInt(2 * keys)); // about 50% hits
+
+            for (SearchTree tree : new SearchTree[]{new RBTree(), new BPlusTree(fanout)}) {
+                long start = System.nanoTime();
+                for (int value : values) tree.insert(new IntComparable(value));
+                long insertTime = System.nanoTime() - start;
+
+                long lookupTime = Long.MAX_VALUE;
+                for (int round = 0; round < 3; round++) { // best of three, the first rounds are the warm-up for the JIT
+                    start = System.nanoTime();
+                    for (IntComparable query : queries) tree.lookup(query);
+                    lookupTime = Math.min(lookupTime, System.nanoTime() - start);
+                }
+                System.out.printf("%,d keys: %s insert %.1f ns/op, lookup %.1f ns/op%n", keys,
+                        tree.getClass().getSimpleName(), (double) insertTime / keys, (double) lookupTime / lookups);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package de.hsfd.binary_tree.benchmark;
+
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.TreeCursor;
+import de.hsfd.binary_tree.services.wrapper.IntComparable;
+
+import java.util.Random;
+
+/**
+ * Compares root-based {@link RBTree#lookup(Comparable)} with {@link TreeCursor#lookup(Comparable)}
+ * on a clustered trace, where every lookup is close to the previous one (random walk over the key space).
+ * <p>Usage: {@code FingerSearchBenchmark [keys] [lookups] [maxStep]}</p>
+ */
+public class FingerSearchBenchmark {
+    public static void main(String[] args) {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        int maxStep = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+        Random random = new Random(27);
+        RBTree tree = new RBTree();
+        for (int key : FrozenTreeBenchmark.shuffledEvenKeys(keys, random)) {
+            tree.insert(new IntComparable(key));
+        }
+
+        IntComparable[] trace = new IntComparable[lookups];
+        int key = keys;
+        for (int i = 0; i < lookups; i++) {
+            key = Math.floorMod(key + random.nextInt(2 * maxStep + 1) - maxStep, 2 * keys);
+            trace[i] = new IntComparable(key);
+        }
+
+        TreeCursor cursor = tree.cursor();
+        for (int round = 1; round <= 3; round++) { // the first rounds are the warm-up for the JIT
+            long hits = 0;
+            long start = System.nanoTime();
+            for (IntComparable query : trace) if (tree.lookup(query) != null) hits++;
+            long rootTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (IntComparable query : trace) if (cursor.lookup(query) != null) hits--;
+            long fingerTime = System.nanoTime() - start;
+
+            System.out.printf("round %d: root lookup %.1f ns/op, finger lookup %.1f ns/op, speedup %.2fx (hit check %d)%n",
+                    round, (double) rootTime / lookups, (double) fingerTime / lookups,
+                    (double) rootTime / fingerTime, hits);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.hsfd.binary_tree.benchmark;
+
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.SearchTree;
+import de.hsfd.binary_tree.services.concurrent.FlatCombiningTree;
+import de.hsfd.binary_tree.services.concurrent.LockedTree;
+import de.hsfd.binary_tree.services.wrapper.IntComparable;
+
+import java.util.Random;
+
+/**
+ * Compares a {@link FlatCombiningTree} with a {@link LockedTree} (one {@link java.util.concurrent.locks.ReentrantLock})
+ * around an {@link RBTree}, where every thread runs a mix of lookups, insertions and deletions on random keys.
+ * <p>Usage: {@code FlatCombiningBenchmark [threads] [operationsPerThread] [keys] [virtual]},
+ * e.g. {@code 32 500000 1000000 true} to run the workers as virtual threads.</p>
+ */
+public class FlatCombiningBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int keys = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        boolean virtual = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        for (int round = 0; round < 3; round++) { // the first rounds are the warm-up for the JIT
+            SearchTree locked = new LockedTree(new RBTree());
+            SearchTree combining = new FlatCombiningTree(new RBTree());
+            System.out.printf("round %d (%d %s threads): ReentrantLock %.2f Mops/s, flat combining %.2f Mops/s%n",
+                    round, threads, virtual ? "virtual" : "platform",
+                    run(locked, threads, operations, keys, virtual), run(combining, threads, operations, keys, virtual));
+        }
+    }
+
+    /**
+     * @return the throughput in million operations per second
+     */
+    private static double run(SearchTree tree, int threads, int operations, int keys, boolean virtual)
+            throws InterruptedException {
+        Thread.Builder builder = virtual ? Thread.ofVirtual() : Thread.ofPlatform();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            workers[t] = builder.unstarted(() -> {
+                for (int i = 0; i < operations; i++) {
+                    IntComparable key = new IntComparable(random.nextInt(keys));
+                    int operation = random.nextInt(10);
+                    if (operation < 6) tree.lookup(key); // 60% lookups, 30% insertions, 10% deletions
+                    else if (operation < 9) tree.add(key);
+                    else tree.remove(key);
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+        long time = System.nanoTime() - start;
+        return (double) threads * operations / time * 1000;
+    }
+}
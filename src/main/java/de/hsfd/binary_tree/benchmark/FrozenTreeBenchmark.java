@@ -0,0 +1,58 @@
+package de.hsfd.binary_tree.benchmark;
+
+import de.hsfd.binary_tree.services.FrozenTree;
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.wrapper.IntComparable;
+
+import java.util.Random;
+
+/**
+ * Compares the lookup throughput of a live {@link RBTree} with its {@link FrozenTree} index.
+ * <p>Usage: {@code FrozenTreeBenchmark [keys] [lookups]}, e.g. {@code 10000000 20000000} for the 10M keys case.</p>
+ */
+public class FrozenTreeBenchmark {
+    public static void main(String[] args) {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+        Random random = new Random(26);
+        RBTree tree = new RBTree();
+        for (int key : shuffledEvenKeys(keys, random)) {
+            tree.insert(new IntComparable(key));
+        }
+        FrozenTree frozen = tree.freeze();
+
+        IntComparable[] queries = new IntComparable[lookups];
+        for (int i = 0; i < lookups; i++) queries[i] = new IntComparable(random.nextInt(2 * keys)); // about 50% hits
+
+        for (int round = 1; round <= 3; round++) { // the first rounds are the warm-up for the JIT
+            long hits = 0;
+            long start = System.nanoTime();
+            for (IntComparable query : queries) if (tree.lookup(query) != null) hits++;
+            long rbTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (IntComparable query : queries) if (frozen.contains(query)) hits--;
+            long frozenTime = System.nanoTime() - start;
+
+            System.out.printf("round %d: RBTree %.1f ns/lookup, FrozenTree %.1f ns/lookup, speedup %.2fx (hit check %d)%n",
+                    round, (double) rbTime / lookups, (double) frozenTime / lookups,
+                    (double) rbTime / frozenTime, hits);
+        }
+    }
+
+    /**
+     * @return the keys 0, 2, 4, ... in random order, so that odd lookups miss and no duplicates are inserted
+     */
+    static int[] shuffledEvenKeys(int count, Random random) {
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) keys[i] = 2 * i;
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,75 @@
+package de.hsfd.binary_tree.benchmark;
+
+import de.hsfd.binary_tree.services.AVLTree;
+import de.hsfd.binary_tree.services.BinaryTree;
+import de.hsfd.binary_tree.services.NodePool;
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.wrapper.IntComparable;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares a sliding window churn (every insertion is paired with the deletion of the oldest value) with and
+ * without a {@link NodePool}, and reports the allocated bytes per operation and the time spent in the garbage
+ * collector. The values are created once before, so the allocations are only the nodes and the temporary objects
+ * of the operations.
+ * <p>Usage: {@code NodePoolBenchmark [window] [operations]}, e.g. with {@code -Xmx256m} to make the GC pressure
+ * visible.</p>
+ */
+@SuppressWarnings("rawtypes")
+public class NodePoolBenchmark {
+    public static void main(String[] args) {
+        int window = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+
+        // twice the window, so that the values in the window are always distinct
+        IntComparable[] values = new IntComparable[2 * window];
+        Random random = new Random(49);
+        for (int i = 0; i < values.length; i++) values[i] = new IntComparable(random.nextInt());
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        for (Supplier<BinaryTree> factory : List.<Supplier<BinaryTree>>of(RBTree::new, AVLTree::new)) {
+            for (int round = 1; round <= 3; round++) { // the first rounds are the warm-up for the JIT
+                for (boolean pooled : new boolean[]{false, true}) {
+                    BinaryTree tree = factory.get();
+                    NodePool pool = new NodePool();
+                    if (pooled) tree.enableNodePool(pool);
+                    for (int i = 0; i < window; i++) tree.add(values[i]);
+
+                    long bytes = threads.getThreadAllocatedBytes(thread);
+                    long gcTime = gcTime();
+                    long gcCount = gcCount();
+                    long start = System.nanoTime();
+                    for (int i = window; i < window + operations; i++) {
+                        tree.add(values[i % values.length]);
+                        tree.remove(values[(i - window) % values.length]);
+                    }
+                    long time = System.nanoTime() - start;
+                    bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+                    System.out.printf("round %d: %s %-8s %.1f ns/op, %.1f bytes/op, GC %d ms in %d collections%s%n",
+                            round, tree.getClass().getSimpleName(), pooled ? "pooled" : "unpooled",
+                            (double) time / operations, (double) bytes / operations,
+                            gcTime() - gcTime, gcCount() - gcCount, pooled ? ", " + pool : "");
+                }
+            }
+        }
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) time += Math.max(0, gc.getCollectionTime());
+        return time;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+}
@@ -0,0 +1,103 @@
+package de.hsfd.binary_tree.benchmark;
+
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.concurrent.LockedTree;
+import de.hsfd.binary_tree.services.replication.KeyCodec;
+import de.hsfd.binary_tree.services.replication.QueueChannel;
+import de.hsfd.binary_tree.services.replication.ReadReplica;
+import de.hsfd.binary_tree.services.replication.ReplicatedTree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compares the lookup throughput of reader threads sharing one {@link LockedTree} with reader threads that each
+ * own a {@link ReadReplica} of a {@link ReplicatedTree}. In both cases, one writer thread inserts and deletes
+ * random keys at full speed during the measurement, and the replicas catch up every 1024 lookups.
+ * <p>Usage: {@code ReplicationBenchmark [readers] [lookupsPerReader] [keys]}</p>
+ */
+public class ReplicationBenchmark {
+    public static void main(String[] args) throws Exception {
+        int readers = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int keys = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+
+        for (int round = 1; round <= 3; round++) { // the first rounds are the warm-up for the JIT
+            LockedTree locked = new LockedTree(new RBTree());
+            for (int i = 0; i < keys; i += 2) locked.add(i);
+            double shared = run(readers, lookups, keys, locked::add, locked::remove, t -> locked::lookup);
+
+            ReplicatedTree primary = new ReplicatedTree(new RBTree(), KeyCodec.INTEGER);
+            for (int i = 0; i < keys; i += 2) primary.add(i);
+            ReadReplica[] replicas = new ReadReplica[readers];
+            for (int t = 0; t < readers; t++) {
+                QueueChannel channel = new QueueChannel();
+                primary.attach(channel);
+                replicas[t] = new ReadReplica(RBTree::new, KeyCodec.INTEGER, channel);
+            }
+            double replicated = run(readers, lookups, keys, primary::add, primary::remove, t -> new Reader() {
+                private int count;
+
+                @Override
+                public Object lookup(Integer key) {
+                    try {
+                        if ((++count & 1023) == 0) replicas[t].catchUp();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return replicas[t].lookup(key);
+                }
+            });
+            primary.close();
+
+            System.out.printf("round %d: %d readers, shared lock %.2f Mlookups/s, replicas %.2f Mlookups/s%n",
+                    round, readers, shared, replicated);
+        }
+    }
+
+    private interface Reader {
+        Object lookup(Integer key);
+    }
+
+    private interface Writer {
+        boolean apply(Integer key);
+    }
+
+    private interface ReaderFactory {
+        Reader of(int thread);
+    }
+
+    /**
+     * @return the lookup throughput of all readers in million lookups per second
+     */
+    private static double run(int readers, int lookups, int keys, Writer add, Writer remove, ReaderFactory factory)
+            throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(50);
+            while (!done.get()) {
+                Integer key = random.nextInt(keys);
+                if (random.nextBoolean()) add.apply(key);
+                else remove.apply(key);
+            }
+        });
+        Thread[] workers = new Thread[readers];
+        for (int t = 0; t < readers; t++) {
+            Reader reader = factory.of(t);
+            Random random = new Random(t);
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < lookups; i++) reader.lookup(random.nextInt(keys));
+            });
+        }
+        writer.start();
+        long start = System.nanoTime();
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+        long time = System.nanoTime() - start;
+        done.set(true);
+        writer.join();
+        return (double) readers * lookups / time * 1000;
+    }
+}
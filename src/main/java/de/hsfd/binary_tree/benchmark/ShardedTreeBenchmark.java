@@ -0,0 +1,58 @@
+package de.hsfd.binary_tree.benchmark;
+
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.SearchTree;
+import de.hsfd.binary_tree.services.concurrent.LockedTree;
+import de.hsfd.binary_tree.services.concurrent.ShardedTree;
+import de.hsfd.binary_tree.services.wrapper.IntComparable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the write throughput of one {@link RBTree} behind a single lock with a {@link ShardedTree} of
+ * {@link RBTree} shards, where every thread inserts and deletes random keys of the whole key space.
+ * <p>Usage: {@code ShardedTreeBenchmark [threads] [operationsPerThread] [keys]}, e.g. {@code 32 500000 1000000}</p>
+ */
+public class ShardedTreeBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int keys = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+
+        List<IntComparable> sample = new ArrayList<>();
+        Random random = new Random(35);
+        for (int i = 0; i < 10_000; i++) sample.add(new IntComparable(random.nextInt(keys)));
+
+        for (int round = 0; round < 3; round++) { // the first rounds are the warm-up for the JIT
+            SearchTree single = new LockedTree(new RBTree());
+            ShardedTree sharded = new ShardedTree(RBTree::new, threads, sample);
+
+            System.out.printf("round %d: single lock %.2f Mops/s, sharded %.2f Mops/s%n", round,
+                    run(single, threads, operations, keys), run(sharded, threads, operations, keys));
+        }
+    }
+
+    /**
+     * @return the throughput in million operations per second
+     */
+    private static double run(SearchTree tree, int threads, int operations, int keys) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < operations; i++) {
+                    IntComparable key = new IntComparable(random.nextInt(keys));
+                    if (random.nextInt(4) == 0) tree.remove(key); // 3/4 insertions, so that the tree grows
+                    else tree.add(key);
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+        long time = System.nanoTime() - start;
+        return (double) threads * operations / time * 1000;
+    }
+}
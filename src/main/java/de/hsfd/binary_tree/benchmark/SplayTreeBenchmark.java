@@ -0,0 +1,64 @@
+package de.hsfd.binary_tree.benchmark;
+
+import de.hsfd.binary_tree.services.AVLTree;
+import de.hsfd.binary_tree.services.BinaryTree;
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.SplayTree;
+import de.hsfd.binary_tree.services.wrapper.IntComparable;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the lookup throughput of {@link SplayTree}, {@link AVLTree} and {@link RBTree}
+ * on a zipfian access distribution. With the default skew of 1.2, about 1% of the keys take
+ * the large majority of the lookups.
+ * <p>Usage: {@code SplayTreeBenchmark [keys] [lookups] [skew]}</p>
+ */
+public class SplayTreeBenchmark {
+    public static void main(String[] args) {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        double skew = args.length > 2 ? Double.parseDouble(args[2]) : 1.2;
+
+        Random random = new Random(28);
+        int[] values = FrozenTreeBenchmark.shuffledEvenKeys(keys, random);
+        IntComparable[] trace = zipfianTrace(values, lookups, skew, random);
+
+        BinaryTree[] trees = {new SplayTree(), new AVLTree(), new RBTree()};
+        for (BinaryTree tree : trees) {
+            for (int value : values) tree.insert(new IntComparable(value));
+        }
+
+        for (int round = 1; round <= 3; round++) { // the first rounds are the warm-up for the JIT
+            StringBuilder line = new StringBuilder("round " + round + ":");
+            for (BinaryTree tree : trees) {
+                long start = System.nanoTime();
+                for (IntComparable query : trace) tree.lookup(query);
+                long time = System.nanoTime() - start;
+                line.append(String.format(" %s %.1f ns/lookup,", tree.getClass().getSimpleName(), (double) time / lookups));
+            }
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Draws the lookups from a zipfian distribution: the key with rank r has the weight 1 / r^skew.
+     * The ranks are assigned to the shuffled values, so the hot keys are spread over the key space.
+     */
+    static IntComparable[] zipfianTrace(int[] values, int lookups, double skew, Random random) {
+        double[] cumulative = new double[values.length];
+        double sum = 0;
+        for (int rank = 0; rank < values.length; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        IntComparable[] trace = new IntComparable[lookups];
+        for (int i = 0; i < lookups; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            rank = rank < 0 ? -rank - 1 : rank;
+            trace[i] = new IntComparable(values[Math.min(rank, values.length - 1)]);
+        }
+        return trace;
+    }
+}
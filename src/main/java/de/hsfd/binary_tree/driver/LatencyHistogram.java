@@ -0,0 +1,91 @@
+package de.hsfd.binary_tree.driver;
+
+/**
+ * A log-linear latency histogram in nanoseconds: the values are grouped by their power of two, and every power of
+ * two is split into {@link LatencyHistogram#SUB_BUCKETS} / 2 linear sub-buckets, so that the relative error of
+ * a percentile is at most 2 / {@link LatencyHistogram#SUB_BUCKETS} (1.6%) over the whole range of {@code long}.
+ * <p>
+ * {@link LatencyHistogram#record(long)} only increments one counter of a preallocated array, so it does not allocate
+ * and can be called for every operation. It is not thread-safe: every thread records into its own histogram, and
+ * the histograms are merged at the end.
+ * </p>
+ * Inspired from: Gil Tene, HdrHistogram, <a href="https://hdrhistogram.github.io/HdrHistogram/">hdrhistogram.github.io</a>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+
+    /**
+     * The number of buckets below 2^{@link LatencyHistogram#SUB_BITS}, where every value has its own bucket.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    /**
+     * One linear range for the small values and {@link LatencyHistogram#HALF} buckets for every further power of two.
+     */
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BITS) * HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long max;
+
+    /**
+     * @param nanos the latency, negative values are counted as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[indexOf(nanos)]++;
+        count++;
+        if (nanos > max) max = nanos;
+    }
+
+    /**
+     * Adds the values of another histogram to this one.
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return the highest value of the bucket that contains the percentile (but not more than the maximum),
+     * 0 if the histogram is empty
+     */
+    public long percentile(double percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(highestValueOf(i), max);
+        }
+        return max;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        // the shift moves the highest bit to position SUB_BITS - 1, so that (value >> shift) is in [HALF, SUB_BUCKETS)
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF + HALF;
+        long highest = ((subBucket + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
@@ -0,0 +1,175 @@
+package de.hsfd.binary_tree.driver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A recorded sequence of tree operations with {@code long} keys, loaded completely into memory, so that the
+ * replay measures the tree and not the parsing. The keys are boxed once while loading.
+ * <p>
+ * Text format, one operation per line, blank lines and lines starting with {@code #} are ignored:
+ * </p>
+ * <pre>
+ * insert 42
+ * delete 42
+ * lookup 42
+ * range 10 20
+ * </pre>
+ * <p>
+ * Binary format: the magic bytes {@code BTTR}, the version byte, the number of operations as {@code int}, and for
+ * every operation the ordinal of the {@link Operation} as one byte followed by the key as {@code long} (and the
+ * upper bound as {@code long} for {@link Operation#RANGE}), all big-endian.
+ * </p>
+ */
+@SuppressWarnings("rawtypes")
+public class Trace {
+
+    public enum Operation {INSERT, DELETE, LOOKUP, RANGE}
+
+    private static final byte[] MAGIC = {'B', 'T', 'T', 'R'};
+    private static final byte VERSION = 1;
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final Operation[] operations;
+    private final Comparable[] keys;
+    /**
+     * The upper bounds of the range queries, null for the other operations.
+     */
+    private final Comparable[] upperKeys;
+
+    private Trace(Operation[] operations, Comparable[] keys, Comparable[] upperKeys) {
+        this.operations = operations;
+        this.keys = keys;
+        this.upperKeys = upperKeys;
+    }
+
+    /**
+     * Reads a text or binary trace, the format is recognized by the magic bytes.
+     *
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static Trace read(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            in.mark(MAGIC.length);
+            byte[] head = in.readNBytes(MAGIC.length);
+            if (Arrays.equals(head, MAGIC)) return readBinary(new DataInputStream(in), Files.size(file));
+            in.reset();
+            return readText(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        }
+    }
+
+    private static Trace readText(BufferedReader reader) throws IOException {
+        List<Operation> operations = new ArrayList<>();
+        List<Comparable> keys = new ArrayList<>();
+        List<Comparable> upperKeys = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\\s+");
+            try {
+                Operation operation = Operation.valueOf(parts[0].toUpperCase(Locale.ROOT));
+                if (parts.length != (operation == Operation.RANGE ? 3 : 2)) {
+                    throw new IOException("line " + lineNumber + ": wrong number of arguments: " + line);
+                }
+                operations.add(operation);
+                keys.add(Long.parseLong(parts[1]));
+                upperKeys.add(operation == Operation.RANGE ? Long.parseLong(parts[2]) : null);
+            } catch (IllegalArgumentException e) { // also NumberFormatException
+                throw new IOException("line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return new Trace(operations.toArray(new Operation[0]), keys.toArray(new Comparable[0]),
+                upperKeys.toArray(new Comparable[0]));
+    }
+
+    /**
+     * @param fileSize the number of bytes of the file, which bounds the number of operations, so that a corrupt
+     *                 count is reported instead of allocating the arrays for it
+     */
+    private static Trace readBinary(DataInputStream in, long fileSize) throws IOException {
+        byte version = in.readByte();
+        if (version != VERSION) throw new IOException("unsupported trace version " + version);
+        int size = in.readInt();
+        // every operation takes at least its code and its key
+        long maxSize = (fileSize - MAGIC.length - 1 - Integer.BYTES) / (1 + Long.BYTES);
+        if (size < 0 || size > maxSize) {
+            throw new IOException("corrupt number of operations " + size + ", the file holds at most " + maxSize);
+        }
+        Operation[] operations = new Operation[size];
+        Comparable[] keys = new Comparable[size];
+        Comparable[] upperKeys = new Comparable[size];
+        for (int i = 0; i < size; i++) {
+            int ordinal = in.readUnsignedByte();
+            if (ordinal >= OPERATIONS.length) throw new IOException("operation " + i + ": unknown code " + ordinal);
+            operations[i] = OPERATIONS[ordinal];
+            keys[i] = in.readLong();
+            if (operations[i] == Operation.RANGE) upperKeys[i] = in.readLong();
+        }
+        return new Trace(operations, keys, upperKeys);
+    }
+
+    /**
+     * Writes the trace in the binary format, e.g. to convert a large text trace once.
+     */
+    public void writeBinary(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(size());
+            for (int i = 0; i < size(); i++) {
+                out.writeByte(operations[i].ordinal());
+                out.writeLong((Long) keys[i]);
+                if (operations[i] == Operation.RANGE) out.writeLong((Long) upperKeys[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes the trace in the text format.
+     */
+    public void writeText(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < size(); i++) {
+                writer.write(operations[i].name().toLowerCase(Locale.ROOT) + " " + keys[i]);
+                if (operations[i] == Operation.RANGE) writer.write(" " + upperKeys[i]);
+                writer.write('\n');
+            }
+        }
+    }
+
+    public int size() {
+        return operations.length;
+    }
+
+    public Operation operation(int i) {
+        return operations[i];
+    }
+
+    public Comparable key(int i) {
+        return keys[i];
+    }
+
+    /**
+     * @return the upper bound of a range query, null for the other operations
+     */
+    public Comparable upperKey(int i) {
+        return upperKeys[i];
+    }
+}
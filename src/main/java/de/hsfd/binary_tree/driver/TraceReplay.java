@@ -0,0 +1,180 @@
+package de.hsfd.binary_tree.driver;
+
+import de.hsfd.binary_tree.services.AVLTree;
+import de.hsfd.binary_tree.services.AdaptiveTree;
+import de.hsfd.binary_tree.services.BPlusTree;
+import de.hsfd.binary_tree.services.BSTree;
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.ScapegoatTree;
+import de.hsfd.binary_tree.services.SearchTree;
+import de.hsfd.binary_tree.services.SplayTree;
+import de.hsfd.binary_tree.services.WAVLTree;
+import de.hsfd.binary_tree.services.concurrent.FlatCombiningTree;
+import de.hsfd.binary_tree.services.concurrent.LockedTree;
+import de.hsfd.binary_tree.services.concurrent.ShardedTree;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a {@link Trace} against a tree and reports the throughput and the latency percentiles.
+ * <p>
+ * Usage: {@code TraceReplay <trace> [--tree bst|scapegoat|avl|rb|wavl|splay|bplus|adaptive|sharded|combining] [--threads n]
+ * [--rate operationsPerSecond] [--convert binaryTrace]}
+ * </p>
+ * <p>
+ * With n threads, thread t replays the operations t, t + n, t + 2n, ... of the trace. A tree that is not thread-safe
+ * is wrapped in a {@link LockedTree}, if more than one thread is used.
+ * </p>
+ * <p>
+ * Without a rate, every thread issues its next operation as soon as the previous one returns, and the latency is
+ * the service time. With a rate, every operation has an intended start time on a fixed schedule, and the latency
+ * is measured from that time. Otherwise, a stall would delay the following operations without being counted in
+ * their latency (coordinated omission), and the percentiles would look better than the tree really is.
+ * </p>
+ * Inspired from: Gil Tene, How NOT to Measure Latency (2015)
+ */
+@SuppressWarnings("rawtypes")
+public class TraceReplay {
+
+    /**
+     * The waiting time before an intended start, below which the thread spins instead of parking,
+     * because parking is too coarse for the gaps of a high rate.
+     */
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+
+    /**
+     * The result of a replay.
+     *
+     * @param nanos     the wall-clock time of the whole replay
+     * @param latencies the merged latencies of all threads
+     */
+    public record Report(String tree, int threads, long nanos, LatencyHistogram latencies) {
+
+        public double throughput() {
+            return latencies.count() / (nanos / 1e9);
+        }
+
+        public void print(PrintStream out) {
+            out.printf(Locale.ROOT, "tree=%s threads=%d operations=%d time=%.3f s throughput=%.0f ops/s%n",
+                    tree, threads, latencies.count(), nanos / 1e9, throughput());
+            out.printf(Locale.ROOT, "latency (us): p50=%.2f p99=%.2f p999=%.2f max=%.2f%n",
+                    latencies.percentile(50) / 1e3, latencies.percentile(99) / 1e3,
+                    latencies.percentile(99.9) / 1e3, latencies.max() / 1e3);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: TraceReplay <trace> [--tree bst|scapegoat|avl|rb|wavl|splay|bplus|adaptive|sharded|combining] "
+                    + "[--threads n] [--rate operationsPerSecond] [--convert binaryTrace]");
+            return;
+        }
+        String tree = "rb";
+        int threads = 1;
+        long rate = 0;
+        Path convert = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--tree" -> tree = args[++i];
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--rate" -> rate = Long.parseLong(args[++i]);
+                case "--convert" -> convert = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (threads < 1) throw new IllegalArgumentException("The number of threads must be at least 1, but was " + threads);
+
+        Trace trace = Trace.read(Path.of(args[0]));
+        if (convert != null) {
+            trace.writeBinary(convert);
+            System.out.println(trace.size() + " operations written to " + convert);
+            return;
+        }
+        replay(createTree(tree, threads), trace, threads, rate).print(System.out);
+    }
+
+    /**
+     * @param name    one of bst, scapegoat, avl, rb, wavl, splay, bplus, adaptive, sharded and combining
+     * @param threads the number of replaying threads
+     * @return the tree, thread-safe if more than one thread is used
+     */
+    public static SearchTree createTree(String name, int threads) {
+        SearchTree tree = switch (name.toLowerCase(Locale.ROOT)) {
+            case "bst" -> new BSTree();
+            case "scapegoat" -> new ScapegoatTree();
+            case "avl" -> new AVLTree();
+            case "rb" -> new RBTree();
+            case "wavl" -> new WAVLTree();
+            case "splay" -> new SplayTree();
+            case "bplus" -> new BPlusTree();
+            case "adaptive" -> new AdaptiveTree(AVLTree::new);
+            case "sharded" -> new ShardedTree(RBTree::new, Math.max(threads, 1));
+            case "combining" -> new FlatCombiningTree(new RBTree());
+            default -> throw new IllegalArgumentException("unknown tree " + name);
+        };
+        if (threads > 1 && !(tree instanceof ShardedTree || tree instanceof FlatCombiningTree)) {
+            tree = new LockedTree(tree);
+        }
+        return tree;
+    }
+
+    /**
+     * @param threads    the number of replaying threads
+     * @param targetRate the operations per second of all threads together, 0 for as fast as possible
+     */
+    public static Report replay(SearchTree tree, Trace trace, int threads, long targetRate) throws InterruptedException {
+        LatencyHistogram[] histograms = new LatencyHistogram[threads];
+        Thread[] workers = new Thread[threads];
+        // every thread gets every threads-th operation, so its interval is threads times the global one
+        long interval = targetRate > 0 ? Math.max(1, threads * 1_000_000_000L / targetRate) : 0;
+        long start = System.nanoTime() + 1_000_000; // the threads start together, after all are created
+        for (int t = 0; t < threads; t++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histograms[t] = histogram;
+            int first = t;
+            workers[t] = new Thread(() -> replay(tree, trace, first, threads, start, interval, histogram));
+        }
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+        long nanos = System.nanoTime() - start;
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) latencies.merge(histogram);
+        return new Report(tree.getClass().getSimpleName(), threads, nanos, latencies);
+    }
+
+    private static void replay(SearchTree tree, Trace trace, int first, int step, long start, long interval,
+                               LatencyHistogram histogram) {
+        waitUntil(start);
+        long intended = start;
+        for (int i = first; i < trace.size(); i += step) {
+            long begin;
+            if (interval > 0) {
+                waitUntil(intended);
+                begin = intended;
+                intended += interval;
+            } else {
+                begin = System.nanoTime();
+            }
+            switch (trace.operation(i)) {
+                case INSERT -> tree.add(trace.key(i));
+                case DELETE -> tree.remove(trace.key(i));
+                case LOOKUP -> tree.lookup(trace.key(i));
+                case RANGE -> tree.range(trace.key(i), trace.upperKey(i));
+            }
+            histogram.record(System.nanoTime() - begin);
+        }
+    }
+
+    private static void waitUntil(long time) {
+        long remaining;
+        while ((remaining = time - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            else Thread.onSpinWait();
+        }
+    }
+}
@@ -5,141 +5,216 @@ import de.hsfd.binary_tree.services.exceptions.TreeException;
 @SuppressWarnings({"rawtypes","unchecked"})
 public class AVLTree extends BinaryTree {
 
+    public AVLTree() {
+        super();
+    }
+
+    /**
+     * @param multiset whether a duplicate should be counted in the existing node instead of being rejected
+     */
+    public AVLTree(boolean multiset) {
+        super(multiset);
+    }
+
     @Override
     protected Node deleteTarget(Node parentTarget, Node target, CHILD positionOfTarget) throws TreeException {
         // target found
         if(parentTarget == null && target.isLeaf()) { // target is the root and only one
             root = null;
+            return null;
+        }
+        Node possibleNullNode = null;
+        if(target.getRight() != null && target.getLeft() != null) {
+            // Case 2 if the target has two children. This case is from the Lecture AlgoDS 24/25 HS Fulda
+            // Then take the inorder approach to find the smallest children of the right target's children
+            parentTarget = replaceWithTheSmallestOfRightChildren(target);
+            // the smallest node is either the right child of the target or the leftmost node further down
+            retraceAfterShrink(parentTarget, parentTarget != target);
         } else {
-            Node possibleNullNode = null;
-            if(target.getRight() != null && target.getLeft() != null) {
-                // Case 2 if the target has two children. This case is from the Lecture AlgoDS 24/25 HS Fulda
-                // Then take the inorder approach to find the smallest children of the right target's children
-                parentTarget = replaceWithTheSmallestOfRightChildren(target);
-            } else {
-                possibleNullNode =  deleteTargetWithOneChildOrNone(parentTarget, target, positionOfTarget);
-            }
-            balanceTheTree(parentTarget);
-            return possibleNullNode;
+            possibleNullNode = deleteTargetWithOneChildOrNone(parentTarget, target, positionOfTarget);
+            if (parentTarget != null) retraceAfterShrink(parentTarget, positionOfTarget == CHILD.leftChildOfParent);
         }
-        return null;
+        return possibleNullNode;
     }
 
     @Override
-    public void insert(Comparable x) throws TreeException {
-        Node newNode = new Node(x);
-        insertNode(newNode);
-        balanceTheTree(newNode.getParent());
+    public boolean add(Comparable x) throws TreeException {
+        Node newNode = createNode(x, null);
+        Node node = insertNode(newNode);
+        if(node != newNode) {
+            recycle(newNode);
+            return addDuplicate(node);
+        }
+        retraceAfterGrowth(newNode);
+        return true;
     }
 
     /**
-     * Update the height of the node. This should be executed before calculating the balance factor
-     * so that the height is actual.
-     *
-     * @param parent the node
+     * Joins both trees with the height-based join: if the heights differ by more than one, the middle node is
+     * attached on the right spine of the higher left tree (or the left spine of the higher right tree) where the
+     * height matches the other tree, and the tree is balanced from there upward like after an insertion.
+     * The heights are derived from the balance factors along the way, but the heights of both trees are first read
+     * with {@link AVLTree#heightOf(Node)} in O(log n), so a split, which joins once per node of its path,
+     * takes O(log^2 n).
+     * Inspired from: Blelloch, Ferizovic and Sun, Just Join for Parallel Ordered Sets (2016)
      */
-    private static void updateHeight(Node parent) {
-        int leftHeight = height(parent.getLeft());
-        int rightHeight = height(parent.getRight());
-        parent.setHeight(Math.max(leftHeight,rightHeight) + 1);
+    @Override
+    protected Node join(Node left, Node middle, Node right) {
+        int leftHeight = heightOf(left);
+        int rightHeight = heightOf(right);
+        if (Math.abs(leftHeight - rightHeight) <= 1) {
+            middle.setLeft(left);
+            middle.setRight(right);
+            middle.setBalanceFactor(leftHeight - rightHeight);
+            return middle;
+        }
+
+        boolean isLeftHigher = leftHeight > rightHeight;
+        int otherHeight = Math.min(leftHeight, rightHeight);
+        Node parent = null;
+        Node c = isLeftHigher ? left : right;
+        int heightOfC = Math.max(leftHeight, rightHeight);
+        while (heightOfC > otherHeight + 1) {
+            parent = c;
+            if (isLeftHigher) {
+                heightOfC -= c.getBalanceFactor() > 0 ? 2 : 1;
+                c = c.getRight();
+            } else {
+                heightOfC -= c.getBalanceFactor() < 0 ? 2 : 1;
+                c = c.getLeft();
+            }
+        }
+        if (isLeftHigher) {
+            middle.setLeft(c);
+            middle.setRight(right);
+            parent.setRight(middle);
+            middle.setBalanceFactor(heightOfC - otherHeight);
+        } else {
+            middle.setLeft(left);
+            middle.setRight(c);
+            parent.setLeft(middle);
+            middle.setBalanceFactor(otherHeight - heightOfC);
+        }
+
+        // middle is one higher than c, which it replaces: the same situation as after an insertion.
+        // The rotations update the root, so the higher tree is balanced as if it were the whole tree
+        Node savedRoot = root;
+        root = isLeftHigher ? left : right;
+        retraceAfterGrowth(middle);
+        Node joined = root;
+        root = savedRoot;
+        return joined;
     }
 
     /**
-     * Balances the AVL tree using Iterative approach after an insertion or deletion to ensure the tree maintains
-     * its AVL property where the height difference between left and right subtrees
-     * of any node is at most 1.
-     * <p> The method is being used for Insertion and Deletion. 
-     * For the deletion, the parent and the newNode should be the same, Otherwise it is for the Insertion. 
-     * These approach based on the geeks for geeks implementation to AVL-Tree</p>
-     * <a href="https://www.geeksforgeeks.org/insertion-in-an-avl-tree/">Insertion-method Geeks for Geeks</a><br>
-     * <a href="https://www.geeksforgeeks.org/deletion-in-an-avl-tree/">Deletion-method Geeks for Geeks</a>
-     * 
+     * Walks up from a subtree, which has become one higher (e.g. a new leaf), and updates the balance factors of
+     * the ancestors. The walk stops at the first ancestor whose height does not change: either its lower side has
+     * caught up, or a rotation has restored the height from before the insertion. Hence, only the ancestors with a
+     * balance factor of 0 are visited besides the last one, which is O(1) amortized per insertion.
+     * Inspired from: Knuth, The Art of Computer Programming Vol. 3, 6.2.3 (Algorithm A)
      *
-     * @param parent the parent node from which balancing starts
-     * @throws TreeException if a violation of AVL tree properties persists after balancing
+     * @param child the root of the subtree that has become one higher
      */
-    private void balanceTheTree(Node parent) throws TreeException {
-        while(parent != null) {
-            updateHeight(parent);
-            int balance = calculateBalanceFactor(parent);
-
-            if(balance > 1 || balance < -1) {
-                if (balance > 0) { //left heavy from the parent
-                    if(calculateBalanceFactor(parent.getLeft()) < 0){
-                        leftRotate(parent.getLeft());// Left Right Case
-                    }
-                    rightRotate(parent);
-                } else { // (balance < 0) right heavy from the parent
-                    if (calculateBalanceFactor(parent.getRight()) > 0 ){
-                        rightRotate(parent.getRight());// Right Left Case
-                    }
-                    leftRotate(parent);
-                }
-                if(parent.getParent() == null) this.root = parent;
-
-                if (!(calculateBalanceFactor(parent) <= 1 && calculateBalanceFactor(parent) >= -1)) // this node to the leaf should now be balanced
-                    throw new TreeException("Violates the AVL tree rule\nNode: " +
-                            parent.getData() +"\nHeight: " + parent.getHeight() + "\nTree:\n"
-                            + this.getTreePrinter().prettyPrint());
+    private void retraceAfterGrowth(Node child) {
+        for (Node parent = child.getParent(); parent != null; parent = child.getParent()) {
+            int balance = parent.getBalanceFactor() + (parent.getLeft() == child ? 1 : -1);
+            parent.setBalanceFactor(balance);
+            if (balance == 0) return;
+            if (balance == 2 || balance == -2) {
+                if (rotate(parent)) return;
+                // the new root of the subtree is still one higher, this only happens after a join
+                child = parent.getParent();
+            } else {
+                child = parent;
             }
-
-            parent = parent.getParent();
         }
     }
 
     /**
-     * Get Balance factor of node N: left - right
-     * <p>
-     * <p>> if left is bigger than 1, three is an imbalance on the left side </p>
-     * <p>> if right is smaller than -1, there is an imbalance on the right side </p>
-     * @param n the root to be checked whether imbalance exists
-     * @return the integer result of the balance factor
+     * Walks up from the parent of a subtree, which has become one lower after a deletion, and updates the balance
+     * factors of the ancestors. The walk stops at the first ancestor whose height is not affected: either it was
+     * balanced before, so the other side keeps its height, or a rotation around a balanced sibling keeps the
+     * height of the subtree.
+     * Inspired from: <a href="https://en.wikipedia.org/wiki/AVL_tree#Delete">Wikipedia AVL tree (Delete)</a>
+     *
+     * @param parent     the parent of the subtree that has become one lower
+     * @param leftShrank whether the subtree is the left child of parent
      */
-    static int calculateBalanceFactor(Node n) {
-        if (n == null) // it means the node has not been initialised
-            return 0;
-        return height(n.getLeft()) - height(n.getRight());
+    private void retraceAfterShrink(Node parent, boolean leftShrank) {
+        while (parent != null) {
+            int balance = parent.getBalanceFactor() + (leftShrank ? -1 : 1);
+            parent.setBalanceFactor(balance);
+            if (balance == 1 || balance == -1) return;
+            Node subtree = parent;
+            if (balance != 0) {
+                if (!rotate(parent)) return;
+                subtree = parent.getParent();
+            }
+            Node grandParent = subtree.getParent();
+            if (grandParent == null) return;
+            leftShrank = grandParent.getLeft() == subtree;
+            parent = grandParent;
+        }
     }
 
     /**
-     * A function to balancing the tree of the newNode with bottom up approach <p>
-     * inspired from: <a href="https://www.geeksforgeeks.org/insertion-in-an-avl-tree/">Geek For Geeks</a>
-     * @deprecated
-     *      <p>This method is no longer acceptable because it is not flexible with the implementation. </p>
-     *      <p> We want a function that could be also used for the other function like delete, not only for insert</p>
-     * @param parent the parent of the newNode
-     * @param newNode will be used for the comparison checking.
+     * Rotates a node with a balance factor of 2 or -2 and sets the new balance factors without looking at the
+     * heights. The new root of the subtree is the parent of z afterward.
+     * <p> These approach based on the geeks for geeks implementation to AVL-Tree</p>
+     * <a href="https://www.geeksforgeeks.org/insertion-in-an-avl-tree/">Insertion-method Geeks for Geeks</a><br>
+     * <a href="https://www.geeksforgeeks.org/deletion-in-an-avl-tree/">Deletion-method Geeks for Geeks</a>
+     *
+     * @param z the unbalanced node
+     * @return true if the subtree is one lower than before the rotation, false if the higher child of z was balanced
+     * (only possible after a deletion or a join), so that the subtree keeps its height
      */
-    @Deprecated
-    @SuppressWarnings("unused")
-    private void balanceTheTreeOld(Node parent, Node newNode) {
-        while(parent != null) {
-            int leftHeight = height(parent.getLeft());
-            int rightHeight = height(parent.getRight());
-            parent.setHeight(Math.max(leftHeight,rightHeight) + 1);
-
-            // this code can only be executed if initialised height for a node is 0!
-            if(parent.getHeight() > 1) {
-                int balance = calculateBalanceFactor(parent);
-                if (balance > 0) { //left heavy from the parent
-                    if (newNode.getData().compareTo(parent.getLeft().getData()) > 0) {
-                        leftRotate(parent.getLeft()); // Left Right Case
-                    }
-                    rightRotate(parent);
-                } else if (balance < 0) { // right heavy from the parent
-                    if (newNode.getData().compareTo(parent.getRight().getData()) < 0) {
-                        rightRotate(parent.getRight());// Right Left Case
-                    }
-                    leftRotate(parent);
-                }
-                if(parent.getParent() == null) this.root = parent;
-                if(parent.getHeight() > 1)
-                    throw new TreeException("Violates the AVL tree rule\nNode: " +
-                            parent.getData() +"\nHeight: " + parent.getHeight() + "\nTree:\n"
-                            + this.getTreePrinter().prettyPrint());
+    private boolean rotate(Node z) {
+        if (z.getBalanceFactor() > 0) { // left heavy
+            Node y = z.getLeft();
+            if (y.getBalanceFactor() >= 0) { // Left Left Case
+                boolean lower = y.getBalanceFactor() > 0;
+                rightRotate(z);
+                z.setBalanceFactor(lower ? 0 : 1);
+                y.setBalanceFactor(lower ? 0 : -1);
+                return lower;
             }
+            Node x = y.getRight(); // Left Right Case
+            leftRotate(y);
+            rightRotate(z);
+            z.setBalanceFactor(x.getBalanceFactor() > 0 ? -1 : 0);
+            y.setBalanceFactor(x.getBalanceFactor() < 0 ? 1 : 0);
+            x.setBalanceFactor(0);
+            return true;
+        }
+        Node y = z.getRight(); // right heavy
+        if (y.getBalanceFactor() <= 0) { // Right Right Case
+            boolean lower = y.getBalanceFactor() < 0;
+            leftRotate(z);
+            z.setBalanceFactor(lower ? 0 : -1);
+            y.setBalanceFactor(lower ? 0 : 1);
+            return lower;
+        }
+        Node x = y.getLeft(); // Right Left Case
+        rightRotate(y);
+        leftRotate(z);
+        z.setBalanceFactor(x.getBalanceFactor() < 0 ? 1 : 0);
+        y.setBalanceFactor(x.getBalanceFactor() > 0 ? -1 : 0);
+        x.setBalanceFactor(0);
+        return true;
+    }
 
-            parent = parent.getParent();
+    /**
+     * Walks down along the higher child, so it takes O(log n) instead of reading a stored height.
+     *
+     * @param n the root of an AVL tree, possibly null
+     * @return the number of nodes on the longest path from n to a leaf, 0 for null
+     */
+    static int heightOf(Node n) {
+        int height = 0;
+        while (n != null) {
+            height++;
+            n = n.getBalanceFactor() > 0 ? n.getLeft() : n.getRight();
         }
+        return height;
     }
 }
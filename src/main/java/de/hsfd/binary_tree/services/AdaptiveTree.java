@@ -0,0 +1,202 @@
+package de.hsfd.binary_tree.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * A search tree for many small sets: up to {@link AdaptiveTree#getPromoteAbove()} values are kept in a sorted array
+ * with binary search and shifting inserts, which needs one reference per value instead of a {@link Node} with
+ * the value, the links to the parent and the children, a byte balance factor, a color and a count, and whose
+ * search walks over contiguous memory.
+ * Above that size, the values are moved into a balanced {@link BinaryTree} (e.g. an {@link AVLTree}), and below
+ * {@link AdaptiveTree#getDemoteBelow()} they are moved back into an array. The gap between both thresholds
+ * prevents that a set at the threshold is converted back and forth with every insertion and deletion.
+ * <p>
+ * The values must be distinct, a multiset tree as the backing tree is not supported.
+ * </p>
+ * Inspired from: the small-map optimizations of e.g. Android's {@code ArrayMap} and Java's {@code HashMap},
+ * which turns its buckets into trees only above a threshold
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class AdaptiveTree implements SearchTree, Iterable<Comparable> {
+
+    public static final int DEFAULT_PROMOTE_ABOVE = 32;
+    public static final int DEFAULT_DEMOTE_BELOW = 16;
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final Supplier<? extends BinaryTree> factory;
+    private final int promoteAbove;
+    private final int demoteBelow;
+
+    /**
+     * The sorted values as long as the set is small, null after the promotion.
+     */
+    private Comparable[] values = new Comparable[INITIAL_CAPACITY];
+    private int size;
+    /**
+     * The backing tree after the promotion, null as long as the set is small.
+     */
+    private BinaryTree tree;
+
+    /**
+     * @param factory creates the backing tree for the promotion, e.g. {@code AVLTree::new}
+     */
+    public AdaptiveTree(Supplier<? extends BinaryTree> factory) {
+        this(factory, DEFAULT_PROMOTE_ABOVE, DEFAULT_DEMOTE_BELOW);
+    }
+
+    /**
+     * @param factory      creates the backing tree for the promotion, e.g. {@code AVLTree::new}
+     * @param promoteAbove the size above which the array is moved into a tree
+     * @param demoteBelow  the size below which the tree is moved back into an array, less than promoteAbove
+     */
+    public AdaptiveTree(Supplier<? extends BinaryTree> factory, int promoteAbove, int demoteBelow) {
+        if (demoteBelow < 0 || demoteBelow >= promoteAbove) {
+            throw new IllegalArgumentException("Expected 0 <= demoteBelow < promoteAbove, but was "
+                    + demoteBelow + " and " + promoteAbove);
+        }
+        this.factory = factory;
+        this.promoteAbove = promoteAbove;
+        this.demoteBelow = demoteBelow;
+    }
+
+    public int getPromoteAbove() {
+        return promoteAbove;
+    }
+
+    public int getDemoteBelow() {
+        return demoteBelow;
+    }
+
+    /**
+     * @return whether the values are in the backing tree instead of the sorted array
+     */
+    public boolean isPromoted() {
+        return tree != null;
+    }
+
+    /**
+     * @return the backing tree, null as long as the set is small
+     */
+    BinaryTree getTree() {
+        return tree;
+    }
+
+    @Override
+    public boolean add(Comparable data) {
+        if (tree != null) return tree.add(data);
+
+        int index = indexOf(data);
+        if (index >= 0) return false;
+        index = -index - 1;
+        if (size == values.length) values = Arrays.copyOf(values, Math.min(size * 2, promoteAbove + 1));
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = data;
+        size++;
+        if (size > promoteAbove) promote();
+        return true;
+    }
+
+    @Override
+    public boolean remove(Comparable x) {
+        if (tree != null) {
+            if (!tree.remove(x)) return false;
+            if (tree.size() < demoteBelow) demote();
+            return true;
+        }
+
+        int index = indexOf(x);
+        if (index < 0) return false;
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        values[--size] = null;
+        return true;
+    }
+
+    @Override
+    public Comparable lookup(Comparable x) {
+        if (tree != null) return tree.lookup(x);
+        int index = indexOf(x);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public int size() {
+        return tree != null ? tree.size() : size;
+    }
+
+    @Override
+    public List<Comparable> range(Comparable lo, Comparable hi) {
+        if (tree != null) return tree.range(lo, hi);
+        List<Comparable> result = new ArrayList<>();
+        if (lo.compareTo(hi) > 0) return result;
+        int index = indexOf(lo);
+        for (int i = index >= 0 ? index : -index - 1; i < size && values[i].compareTo(hi) <= 0; i++) {
+            result.add(values[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<Comparable> iterator() {
+        if (tree != null) return tree.iterator();
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Comparable next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return values[next++];
+            }
+        };
+    }
+
+    /**
+     * @return the index of x, otherwise (-(insertion point) - 1) as in {@link Arrays#binarySearch(Object[], Object)}
+     */
+    private int indexOf(Comparable x) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = values[middle].compareTo(x);
+            if (comparison < 0) low = middle + 1;
+            else if (comparison > 0) high = middle - 1;
+            else return middle;
+        }
+        return -(low + 1);
+    }
+
+    private void promote() {
+        BinaryTree promoted = factory.get();
+        // the middle first, so that even a plain BSTree is balanced
+        addBalanced(promoted, 0, size - 1);
+        tree = promoted;
+        values = null;
+        size = 0;
+    }
+
+    private void addBalanced(BinaryTree target, int low, int high) {
+        if (low > high) return;
+        int middle = (low + high) >>> 1;
+        target.add(values[middle]);
+        addBalanced(target, low, middle - 1);
+        addBalanced(target, middle + 1, high);
+    }
+
+    private void demote() {
+        int count = tree.size();
+        values = new Comparable[Math.max(INITIAL_CAPACITY, count * 2)];
+        for (Comparable value : tree) values[size++] = value;
+        tree = null;
+    }
+}
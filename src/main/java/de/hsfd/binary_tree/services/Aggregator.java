@@ -0,0 +1,148 @@
+package de.hsfd.binary_tree.services;
+
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * An associative operation with an identity (a monoid) over the values of a tree, e.g. the sum, the minimum or
+ * the maximum. With {@link BinaryTree#enableAggregates(Aggregator)}, every node caches the aggregate of its subtree,
+ * and {@link BinaryTree#aggregate(Comparable, Comparable)} combines a range in O(log n) instead of visiting every
+ * value in it.
+ * <p>
+ * The operation only has to be associative, not commutative: the values are always combined in ascending order.
+ * </p>
+ * Inspired from: Cormen et al., Introduction to Algorithms, Chapter 14 Augmenting Data Structures
+ *
+ * @param <A> the type of the aggregate
+ */
+@SuppressWarnings("rawtypes")
+public interface Aggregator<A> {
+
+    /**
+     * @return the aggregate of no values, e.g. 0 for a sum, which does not change a value when combined
+     */
+    A identity();
+
+    /**
+     * @return the aggregate of a single value
+     */
+    A of(Comparable value);
+
+    /**
+     * @param left  the aggregate of the smaller values
+     * @param right the aggregate of the bigger values
+     * @return the aggregate of both
+     */
+    A combine(A left, A right);
+
+    /**
+     * The aggregate of a value that is counted more than once in a multiset. This default combines the value
+     * with itself by repeated doubling in O(log count), an aggregator can override it with a closed form.
+     *
+     * @param count the number of occurrences, at least 1
+     */
+    default A of(Comparable value, int count) {
+        A single = of(value);
+        if (count == 1) return single;
+        A result = identity();
+        for (int c = count; c > 0; c >>= 1) {
+            if ((c & 1) == 1) result = combine(result, single);
+            single = combine(single, single);
+        }
+        return result;
+    }
+
+    /**
+     * @param identity the aggregate of no values
+     * @param of       the aggregate of a single value
+     * @param combine  the associative operation
+     */
+    static <A> Aggregator<A> of(A identity, Function<Comparable, A> of, BinaryOperator<A> combine) {
+        return new Aggregator<>() {
+            @Override
+            public A identity() {
+                return identity;
+            }
+
+            @Override
+            public A of(Comparable value) {
+                return of.apply(value);
+            }
+
+            @Override
+            public A combine(A left, A right) {
+                return combine.apply(left, right);
+            }
+        };
+    }
+
+    /**
+     * @param weight maps a value to the number to be summed up, e.g. {@code v -> (Integer) v}
+     * @return the sum of the weights, every occurrence in a multiset is counted
+     */
+    static Aggregator<Long> sum(ToLongFunction<Comparable> weight) {
+        return new Aggregator<>() {
+            @Override
+            public Long identity() {
+                return 0L;
+            }
+
+            @Override
+            public Long of(Comparable value) {
+                return weight.applyAsLong(value);
+            }
+
+            @Override
+            public Long of(Comparable value, int count) {
+                return weight.applyAsLong(value) * count;
+            }
+
+            @Override
+            public Long combine(Long left, Long right) {
+                return left + right;
+            }
+        };
+    }
+
+    /**
+     * @return the smallest value, null for no values
+     */
+    static Aggregator<Comparable> min() {
+        return extremum(true);
+    }
+
+    /**
+     * @return the biggest value, null for no values
+     */
+    static Aggregator<Comparable> max() {
+        return extremum(false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Aggregator<Comparable> extremum(boolean min) {
+        return new Aggregator<>() {
+            @Override
+            public Comparable identity() {
+                return null;
+            }
+
+            @Override
+            public Comparable of(Comparable value) {
+                return value;
+            }
+
+            @Override
+            public Comparable of(Comparable value, int count) {
+                return value;
+            }
+
+            @Override
+            public Comparable combine(Comparable left, Comparable right) {
+                if (left == null) return right;
+                if (right == null) return left;
+                return (left.compareTo(right) <= 0) == min ? left : right;
+            }
+        };
+    }
+}
@@ -0,0 +1,343 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.exceptions.TreeException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An in-memory B+ tree with a configurable fanout behind the {@link SearchTree} contract.
+ * <p>
+ * Every page holds up to {@code fanout} keys in a sorted array, which is searched with binary search.
+ * Compared to a binary tree, a lookup touches only log_fanout(n) pages and reads neighbouring keys
+ * from the same cache lines. All values are stored in the leaves, which are linked from left to right,
+ * so that a range scan does not need to go back to the inner pages.
+ * </p>
+ * <p>
+ * Every page except the root holds at least fanout / 2 keys. After a deletion, an underflowing page
+ * borrows one key from a sibling if possible, otherwise it is merged with a sibling.
+ * </p>
+ * Inspired from: Comer, The Ubiquitous B-Tree (1979)
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class BPlusTree implements SearchTree {
+
+    public static final int DEFAULT_FANOUT = 64;
+
+    private abstract static class Page {
+        final Comparable[] keys;
+        int size;
+
+        Page(int fanout) {
+            // one more slot, so that a page can overflow before it is split
+            keys = new Comparable[fanout + 1];
+        }
+    }
+
+    private static final class Leaf extends Page {
+        Leaf next;
+
+        Leaf(int fanout) {
+            super(fanout);
+        }
+    }
+
+    /**
+     * An inner page with size keys and size + 1 children.
+     * All keys of children[i] are smaller than keys[i], all keys of children[i + 1] are bigger or equal.
+     */
+    private static final class Inner extends Page {
+        final Page[] children;
+
+        Inner(int fanout) {
+            super(fanout);
+            children = new Page[fanout + 2];
+        }
+    }
+
+    private final int maxKeys;
+    private final int minKeys;
+    private Page root;
+    private int size;
+    /**
+     * The separator key of the last split, which has to be inserted into the parent page.
+     */
+    private Comparable separator;
+    /**
+     * Whether the last recursive insertion has added the value, false for a duplicate.
+     */
+    private boolean added;
+
+    public BPlusTree() {
+        this(DEFAULT_FANOUT);
+    }
+
+    /**
+     * @param fanout the maximum number of keys per page, e.g. 32 to 128
+     */
+    public BPlusTree(int fanout) {
+        if (fanout < 3) throw new IllegalArgumentException("The fanout must be at least 3, but was " + fanout);
+        this.maxKeys = fanout;
+        this.minKeys = fanout / 2;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of page levels, 0 if the tree is empty
+     */
+    public int height() {
+        int height = 0;
+        for (Page page = root; page != null; height++) {
+            page = page instanceof Inner inner ? inner.children[0] : null;
+        }
+        return height;
+    }
+
+    private static int indexOf(Page page, Comparable x) {
+        return Arrays.binarySearch(page.keys, 0, page.size, x);
+    }
+
+    private static int childIndex(Inner inner, Comparable x) {
+        int i = indexOf(inner, x);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private Leaf leafOf(Comparable x) {
+        Page page = root;
+        while (page instanceof Inner inner) page = inner.children[childIndex(inner, x)];
+        return (Leaf) page;
+    }
+
+    @Override
+    public Comparable lookup(Comparable x) {
+        if (root == null) return null;
+        Leaf leaf = leafOf(x);
+        int i = indexOf(leaf, x);
+        return i >= 0 ? leaf.keys[i] : null;
+    }
+
+    /**
+     * Collects all values between lo and hi (both inclusive) in ascending order along the linked leaves.
+     *
+     * @param lo the lower bound
+     * @param hi the upper bound
+     * @return the values in range, empty if lo is greater than hi
+     */
+    @Override
+    public List<Comparable> range(Comparable lo, Comparable hi) {
+        List<Comparable> result = new ArrayList<>();
+        if (root == null) return result;
+        Leaf leaf = leafOf(lo);
+        int i = indexOf(leaf, lo);
+        i = i >= 0 ? i : -i - 1;
+        for (; leaf != null; leaf = leaf.next, i = 0) {
+            for (; i < leaf.size; i++) {
+                if (leaf.keys[i].compareTo(hi) > 0) return result;
+                result.add(leaf.keys[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean add(Comparable data) {
+        if (root == null) {
+            root = new Leaf(maxKeys);
+        }
+        Page right = insert(root, data);
+        if (!added) return false;
+        if (right != null) {
+            // the root has been split, the tree grows by one level
+            Inner newRoot = new Inner(maxKeys);
+            newRoot.keys[0] = separator;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.size = 1;
+            root = newRoot;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * @return the new right sibling if the page has been split, otherwise null
+     */
+    private Page insert(Page page, Comparable data) {
+        if (page instanceof Leaf leaf) {
+            int i = indexOf(leaf, data);
+            added = i < 0;
+            if (!added) return null;
+            insertAt(leaf.keys, leaf.size, -i - 1, data);
+            leaf.size++;
+            return leaf.size > maxKeys ? splitLeaf(leaf) : null;
+        }
+        Inner inner = (Inner) page;
+        int c = childIndex(inner, data);
+        Page right = insert(inner.children[c], data);
+        if (right == null) return null;
+        insertAt(inner.keys, inner.size, c, separator);
+        insertAt(inner.children, inner.size + 1, c + 1, right);
+        inner.size++;
+        return inner.size > maxKeys ? splitInner(inner) : null;
+    }
+
+    /**
+     * The right half moves into a new leaf, and its first key is copied up as the separator.
+     */
+    private Leaf splitLeaf(Leaf leaf) {
+        int leftSize = (leaf.size + 1) / 2;
+        Leaf right = new Leaf(maxKeys);
+        right.size = leaf.size - leftSize;
+        System.arraycopy(leaf.keys, leftSize, right.keys, 0, right.size);
+        Arrays.fill(leaf.keys, leftSize, leaf.size, null);
+        leaf.size = leftSize;
+
+        right.next = leaf.next;
+        leaf.next = right;
+        separator = right.keys[0];
+        return right;
+    }
+
+    /**
+     * The right half moves into a new inner page, and the middle key moves up as the separator.
+     */
+    private Inner splitInner(Inner inner) {
+        int middle = inner.size / 2;
+        Inner right = new Inner(maxKeys);
+        right.size = inner.size - middle - 1;
+        System.arraycopy(inner.keys, middle + 1, right.keys, 0, right.size);
+        System.arraycopy(inner.children, middle + 1, right.children, 0, right.size + 1);
+        separator = inner.keys[middle];
+
+        Arrays.fill(inner.keys, middle, inner.size, null);
+        Arrays.fill(inner.children, middle + 1, inner.size + 1, null);
+        inner.size = middle;
+        return right;
+    }
+
+    @Override
+    public boolean remove(Comparable x) {
+        if (root == null || !delete(root, x)) return false;
+        size--;
+        if (root.size == 0) {
+            // the tree shrinks by one level, or it is empty now
+            root = root instanceof Inner inner ? inner.children[0] : null;
+        }
+        return true;
+    }
+
+    @Override
+    public void delete(Comparable x) {
+        if (root == null) throw new TreeException("The tree is empty");
+        SearchTree.super.delete(x);
+    }
+
+    /**
+     * @return true if the value has been found and removed
+     */
+    private boolean delete(Page page, Comparable x) {
+        if (page instanceof Leaf leaf) {
+            int i = indexOf(leaf, x);
+            if (i < 0) return false;
+            removeAt(leaf.keys, leaf.size, i);
+            leaf.size--;
+            return true;
+        }
+        // the separators may still contain deleted values, they are only used for the routing
+        Inner inner = (Inner) page;
+        int c = childIndex(inner, x);
+        if (!delete(inner.children[c], x)) return false;
+        if (inner.children[c].size < minKeys) fixUnderflow(inner, c);
+        return true;
+    }
+
+    private void fixUnderflow(Inner parent, int c) {
+        Page left = c > 0 ? parent.children[c - 1] : null;
+        Page right = c < parent.size ? parent.children[c + 1] : null;
+        if (left != null && left.size > minKeys) borrowFromLeft(parent, c);
+        else if (right != null && right.size > minKeys) borrowFromRight(parent, c);
+        else if (left != null) merge(parent, c - 1);
+        else merge(parent, c);
+    }
+
+    private static void borrowFromLeft(Inner parent, int c) {
+        Page child = parent.children[c];
+        Page left = parent.children[c - 1];
+        if (child instanceof Leaf) {
+            insertAt(child.keys, child.size, 0, left.keys[left.size - 1]);
+            child.size++;
+            left.keys[--left.size] = null;
+            parent.keys[c - 1] = child.keys[0];
+        } else {
+            // rotate through the parent: the separator moves down, the last key of the left sibling moves up
+            Inner innerChild = (Inner) child;
+            Inner innerLeft = (Inner) left;
+            insertAt(innerChild.keys, innerChild.size, 0, parent.keys[c - 1]);
+            insertAt(innerChild.children, innerChild.size + 1, 0, innerLeft.children[innerLeft.size]);
+            innerChild.size++;
+            parent.keys[c - 1] = innerLeft.keys[innerLeft.size - 1];
+            innerLeft.keys[innerLeft.size - 1] = null;
+            innerLeft.children[innerLeft.size] = null;
+            innerLeft.size--;
+        }
+    }
+
+    private static void borrowFromRight(Inner parent, int c) {
+        Page child = parent.children[c];
+        Page right = parent.children[c + 1];
+        if (child instanceof Leaf) {
+            child.keys[child.size++] = right.keys[0];
+            removeAt(right.keys, right.size, 0);
+            right.size--;
+            parent.keys[c] = right.keys[0];
+        } else {
+            // rotate through the parent: the separator moves down, the first key of the right sibling moves up
+            Inner innerChild = (Inner) child;
+            Inner innerRight = (Inner) right;
+            innerChild.keys[innerChild.size] = parent.keys[c];
+            innerChild.children[innerChild.size + 1] = innerRight.children[0];
+            innerChild.size++;
+            parent.keys[c] = innerRight.keys[0];
+            removeAt(innerRight.keys, innerRight.size, 0);
+            removeAt(innerRight.children, innerRight.size + 1, 0);
+            innerRight.size--;
+        }
+    }
+
+    /**
+     * Moves all keys of children[i + 1] into children[i] and removes the separator between them from the parent.
+     */
+    private static void merge(Inner parent, int i) {
+        Page left = parent.children[i];
+        Page right = parent.children[i + 1];
+        if (left instanceof Leaf leftLeaf) {
+            System.arraycopy(right.keys, 0, left.keys, left.size, right.size);
+            left.size += right.size;
+            leftLeaf.next = ((Leaf) right).next;
+        } else {
+            Inner innerLeft = (Inner) left;
+            Inner innerRight = (Inner) right;
+            innerLeft.keys[innerLeft.size] = parent.keys[i];
+            System.arraycopy(innerRight.keys, 0, innerLeft.keys, innerLeft.size + 1, innerRight.size);
+            System.arraycopy(innerRight.children, 0, innerLeft.children, innerLeft.size + 1, innerRight.size + 1);
+            innerLeft.size += innerRight.size + 1;
+        }
+        removeAt(parent.keys, parent.size, i);
+        removeAt(parent.children, parent.size + 1, i + 1);
+        parent.size--;
+    }
+
+    private static void insertAt(Object[] array, int length, int index, Object value) {
+        System.arraycopy(array, index, array, index + 1, length - index);
+        array[index] = value;
+    }
+
+    private static void removeAt(Object[] array, int length, int index) {
+        System.arraycopy(array, index + 1, array, index, length - index - 1);
+        array[length - 1] = null;
+    }
+}
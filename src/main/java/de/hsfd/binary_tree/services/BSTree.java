@@ -6,9 +6,12 @@ import de.hsfd.binary_tree.services.exceptions.TreeException;
 public class BSTree extends BinaryTree {
 
     @Override
-    public void insert(Comparable x) throws TreeException {
-        Node newNode = new Node(x);
-        insertNode(newNode);
+    public boolean add(Comparable x) {
+        Node newNode = createNode(x, null);
+        Node node = insertNode(newNode);
+        if (node == newNode) return true;
+        recycle(newNode);
+        return addDuplicate(node);
     }
 
     @Override
@@ -27,4 +30,93 @@ public class BSTree extends BinaryTree {
         }
         return null;
     }
+
+    /**
+     * Turns the tree into a balanced tree in O(n) time and with O(1) extra space, e.g. periodically
+     * or with {@link BSTree#rebalanceIfHeightExceeds(double)}. All levels are full except the lowest one.
+     * <p>
+     * First, right rotations turn the tree into a vine (a list along the right children). Then, left rotations at
+     * every second node of the vine halve its length again and again, until the tree is balanced. Only the
+     * rotations of {@link BinaryTree} are used, so the parent links stay consistent.
+     * </p>
+     * Inspired from: Stout and Warren, Tree Rebalancing in Optimal Time and Space (1986), based on Day (1976)
+     */
+    public void rebalance() {
+        int nodes = 0;
+        Node n = root;
+        while (n != null) {
+            if (n.getLeft() != null) {
+                Node left = n.getLeft();
+                rightRotate(n);
+                n = left;
+            } else {
+                nodes++;
+                n = n.getRight();
+            }
+        }
+
+        // the full levels: the biggest 2^k - 1 that is not bigger than the number of nodes
+        int full = Integer.highestOneBit(nodes + 1) - 1;
+        compress(nodes - full); // the leaves of the incomplete lowest level
+        while (full > 1) {
+            full /= 2;
+            compress(full);
+        }
+    }
+
+    /**
+     * Rebalances the tree, if it is more than factor times higher than a balanced tree.
+     * The height is measured with an iterative walk along the parent links in O(n) time and O(1) extra space,
+     * so a degenerated tree neither overflows the stack nor needs a copy of its levels.
+     *
+     * @param factor the allowed multiple of log2(n + 1), e.g. 2
+     * @return true if the tree has been rebalanced
+     */
+    public boolean rebalanceIfHeightExceeds(double factor) {
+        int nodes = size + tombstones;
+        if (nodes < 2 || height() <= factor * Math.log(nodes + 1) / Math.log(2)) return false;
+        rebalance();
+        return true;
+    }
+
+    /**
+     * @return the number of nodes on the longest path from the root to a leaf
+     */
+    public int height() {
+        int height = 0;
+        int depth = 0;
+        Node previous = null;
+        Node n = root;
+        while (n != null) {
+            Node next;
+            if (previous == n.getParent()) {
+                // coming down: the left subtree first, then the right one
+                height = Math.max(height, ++depth);
+                next = n.getLeft() != null ? n.getLeft() : n.getRight() != null ? n.getRight() : n.getParent();
+            } else if (previous == n.getLeft() && n.getRight() != null) {
+                next = n.getRight();
+            } else {
+                // both subtrees are done
+                next = n.getParent();
+            }
+            if (next == n.getParent()) depth--;
+            previous = n;
+            n = next;
+        }
+        return height;
+    }
+
+    /**
+     * Rotates left at every second node along the right spine, starting from the root.
+     *
+     * @param count the number of rotations
+     */
+    private void compress(int count) {
+        Node n = root;
+        for (int i = 0; i < count; i++) {
+            Node right = n.getRight();
+            leftRotate(n);
+            n = right.getRight();
+        }
+    }
 }
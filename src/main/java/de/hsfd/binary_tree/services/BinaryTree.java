@@ -6,27 +6,40 @@ import de.hsfd.binary_tree.services.exceptions.TreeException;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
-public abstract class BinaryTree {
+public abstract class BinaryTree implements SearchTree, Iterable<Comparable> {
 
     /**
      * Inserts a new element into the binary tree while maintaining its structure.
      * This is an abstract method, and its implementation should define the specific
      * logic for insertion based on the type of binary tree (e.g., Binary Search Tree, AVL Tree, etc.).
      * Please implement the insertNode() function to this method, so that it will be inserted directly into the respected position.
+     * A duplicate is reported with the return value, so that no exception has to be constructed on the hot path.
+     * The throwing variant is {@link SearchTree#insert(Comparable)}.
      * <p> Idea Inspired from AlgoDS Lecture HS Fulda 24/25 </p>
      * @param data the value to be inserted into the binary tree. Must implement the Comparable interface
      * to allow comparisons with other elements in the tree.
+     * @return true if the value has been inserted, false if it is already in the tree
      */
-    public abstract void insert(Comparable data);
+    public abstract boolean add(Comparable data);
 
     /**
      * Deletes a specified target node from the binary tree.
@@ -47,10 +60,477 @@ public abstract class BinaryTree {
 
     protected Node root = null;
 
+    /**
+     * In multiset mode, a duplicate increments the count of the existing node instead of being rejected.
+     */
+    protected final boolean multiset;
+
+    /**
+     * The number of values in the tree, in multiset mode every occurrence is counted.
+     */
+    protected int size = 0;
+
+    /**
+     * The number of nodes that are marked as deleted but are still linked in the tree.
+     */
+    protected int tombstones = 0;
+
+    /**
+     * The maximal share of tombstones among all nodes before {@link BinaryTree#remove(Comparable)} starts
+     * a compaction. A negative value means that the lazy deletion is disabled.
+     */
+    private double compactionThreshold = -1;
+
+    /**
+     * The filter in front of the lookups, null if it is disabled.
+     */
+    private BloomFilter bloomFilter;
+    private double bloomFalsePositiveRate;
+    /**
+     * The number of values that have been deleted since the filter has been built, whose bits are still set.
+     */
+    private int bloomDeletions;
+
+    /**
+     * The monoid whose aggregates are cached in the nodes, null if it is disabled.
+     */
+    private Aggregator aggregator;
+    /**
+     * True if a subclass needs the aggregator for its own queries, see {@link BinaryTree#fixAggregator(Aggregator)}.
+     */
+    private boolean aggregatorFixed;
+
+    /**
+     * The log of the structural changes, null if the tree is not recorded.
+     */
+    private ChangeLog changeLog;
+
+    /**
+     * The free list of removed nodes, null if the nodes are not recycled.
+     */
+    private NodePool nodePool;
+
+    protected BinaryTree() {
+        this(false);
+    }
+
+    /**
+     * @param multiset whether a duplicate should be counted in the existing node instead of being rejected
+     */
+    protected BinaryTree(boolean multiset) {
+        this.multiset = multiset;
+    }
+
+    /**
+     * @param multiset   whether a duplicate should be counted in the existing node instead of being rejected
+     * @param aggregator the aggregator the subclass needs for its own queries, see
+     *                   {@link BinaryTree#fixAggregator(Aggregator)}
+     */
+    protected BinaryTree(boolean multiset, Aggregator aggregator) {
+        this.multiset = multiset;
+        fixAggregator(aggregator);
+    }
+
     public Node getRoot() {
         return root;
     }
 
+    public boolean isMultiset() {
+        return multiset;
+    }
+
+    /**
+     * @return the number of values in the tree, in multiset mode every occurrence is counted
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param x the target value
+     * @return how often x is in the tree, 0 if not found
+     */
+    public int count(Comparable x) {
+        Node n = findNode(x);
+        return n == null || n.isTombstone() ? 0 : n.getCount();
+    }
+
+    /**
+     * Switches to the lazy deletion: {@link BinaryTree#remove(Comparable)} only marks the node as a tombstone in
+     * O(log n) without any rotation or recoloring. Lookups, iterators and {@link BinaryTree#freeze()} skip the
+     * tombstones, and adding the value again simply revives the node.
+     * <p>
+     * The tombstones are removed in one batch by {@link BinaryTree#compact()}, which is started by remove as soon as
+     * the share of tombstones among all nodes exceeds the threshold. With a threshold of 1, remove never compacts,
+     * and the compaction can be scheduled by a background task instead. The tree is not thread-safe, so such a task
+     * has to hold the same lock as every other operation on the tree.
+     * </p>
+     *
+     * @param compactionThreshold the share of tombstones between 0 and 1, e.g. 0.25
+     */
+    public void enableLazyDelete(double compactionThreshold) {
+        if (!(compactionThreshold >= 0 && compactionThreshold <= 1))
+            throw new IllegalArgumentException("The compaction threshold must be between 0 and 1, but was " + compactionThreshold);
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Switches back to the immediate deletion and removes all remaining tombstones.
+     */
+    public void disableLazyDelete() {
+        compactionThreshold = -1;
+        compact();
+    }
+
+    public boolean isLazyDelete() {
+        return compactionThreshold >= 0;
+    }
+
+    /**
+     * @return the number of nodes that are deleted lazily but not compacted yet
+     */
+    public int tombstones() {
+        return tombstones;
+    }
+
+    /**
+     * Puts a {@link BloomFilter} in front of {@link BinaryTree#lookup(Comparable)} and
+     * {@link BinaryTree#remove(Comparable)}, so that most absent values are rejected in O(1) instead of
+     * a descent over the whole height. Every insertion also adds the value to the filter.
+     * <p>
+     * The filter is rebuilt from the values of the tree, when the tree has grown beyond the capacity of the filter
+     * (the capacity is twice the size at the rebuild), or when the deleted values, whose bits are still set, make up
+     * half of the values of the filter. The values must have a {@link Object#hashCode()} that is consistent
+     * with their compareTo.
+     * </p>
+     *
+     * @param falsePositiveRate the targeted rate between 0 and 1, e.g. 0.01
+     */
+    public void enableBloomFilter(double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1))
+            throw new IllegalArgumentException("The false-positive rate must be between 0 and 1, but was " + falsePositiveRate);
+        this.bloomFalsePositiveRate = falsePositiveRate;
+        rebuildBloomFilter();
+    }
+
+    public void disableBloomFilter() {
+        bloomFilter = null;
+    }
+
+    /**
+     * @return the current filter with its metrics (e.g. the false-positive rate and the memory), null if disabled.
+     * The object is replaced by every rebuild.
+     */
+    public BloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    /**
+     * Builds a new filter from the values of the tree, which drains the bits of the deleted values.
+     */
+    public void rebuildBloomFilter() {
+        BloomFilter filter = new BloomFilter(Math.max(2 * size, 64), bloomFalsePositiveRate);
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        Node n = root;
+        while (n != null || !stack.isEmpty()) {
+            while (n != null) {
+                stack.push(n);
+                n = n.getLeft();
+            }
+            n = stack.pop();
+            if (!n.isTombstone()) filter.add(n.getData());
+            n = n.getRight();
+        }
+        bloomFilter = filter;
+        bloomDeletions = 0;
+    }
+
+    /**
+     * @return true if the filter is enabled and x is definitely not in the tree
+     */
+    protected boolean isDefinitelyAbsent(Comparable x) {
+        return bloomFilter != null && !bloomFilter.mightContain(x);
+    }
+
+    /**
+     * Counts a lookup that has passed the filter but has not found the value.
+     */
+    protected void recordBloomFalsePositive() {
+        if (bloomFilter != null) bloomFilter.recordFalsePositive();
+    }
+
+    private void addToBloomFilter(Comparable x) {
+        bloomFilter.add(x);
+        if (bloomFilter.insertions() > bloomFilter.capacity()) rebuildBloomFilter();
+    }
+
+    private void countBloomDeletions(int deleted) {
+        bloomDeletions += deleted;
+        if (bloomDeletions > bloomFilter.insertions() / 2) rebuildBloomFilter();
+    }
+
+    /**
+     * Caches the aggregate of every subtree in its root node, so that {@link BinaryTree#aggregate(Comparable, Comparable)}
+     * answers a range in O(log n). The existing aggregates are computed once bottom-up in O(n).
+     * <p>
+     * The aggregates are kept up to date by every operation: a rotation recomputes the two rotated nodes from their
+     * children, and an insertion, a deletion or a change of a count or a tombstone recomputes the nodes on the path
+     * up to the root. This also covers the rebalancing of the {@link AVLTree} and the {@link RBTree}, because it only
+     * consists of rotations below or on that path. Each operation gets O(log n) combinations more expensive.
+     * </p>
+     * Inspired from: Cormen et al., Introduction to Algorithms, Chapter 14 Augmenting Data Structures
+     *
+     * @param aggregator the associative operation over the values, e.g. {@link Aggregator#sum}
+     * @return true if the aggregator has been enabled, false if the tree keeps its own aggregator (e.g. the
+     * {@link IntervalTree}), which is not replaced
+     */
+    public boolean enableAggregates(Aggregator aggregator) {
+        if (aggregatorFixed) return false;
+        this.aggregator = aggregator;
+        // post-order: both children are computed before their parent
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        Node last = null;
+        Node n = root;
+        while (n != null || !stack.isEmpty()) {
+            while (n != null) {
+                stack.push(n);
+                n = n.getLeft();
+            }
+            Node top = stack.peek();
+            if (top.getRight() != null && top.getRight() != last) {
+                n = top.getRight();
+            } else {
+                updateAggregate(top);
+                last = stack.pop();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops maintaining the aggregates. The cached aggregates stay in the nodes until the next
+     * {@link BinaryTree#enableAggregates(Aggregator)}, but they are not used.
+     *
+     * @return true if the aggregates have been disabled, false if the tree keeps its own aggregator
+     */
+    public boolean disableAggregates() {
+        if (aggregatorFixed) return false;
+        aggregator = null;
+        return true;
+    }
+
+    /**
+     * Installs the aggregator, which a subclass needs for its own queries, e.g. the biggest end of the
+     * {@link IntervalTree}. It is called by the constructor while the tree is still empty, so
+     * nothing has to be computed, and {@link BinaryTree#enableAggregates(Aggregator)} and
+     * {@link BinaryTree#disableAggregates()} leave it in place afterward.
+     *
+     * @throws IllegalStateException if the tree is not empty
+     */
+    protected final void fixAggregator(Aggregator aggregator) {
+        if (root != null) throw new IllegalStateException("The aggregator must be fixed while the tree is empty");
+        this.aggregator = aggregator;
+        this.aggregatorFixed = true;
+    }
+
+    public Aggregator getAggregator() {
+        return aggregator;
+    }
+
+    /**
+     * @return the aggregate of all values in O(1)
+     * @throws IllegalStateException if the aggregates are not enabled
+     */
+    public <A> A aggregate() {
+        checkAggregates();
+        return root == null ? (A) aggregator.identity() : (A) root.getAggregate();
+    }
+
+    /**
+     * Combines all values between lo and hi (both inclusive) in ascending order. The search paths of lo and hi are
+     * walked down once from the node where they split: every node in range on the path of lo contributes itself and
+     * its right subtree (completely in range), and every node in range on the path of hi contributes its left subtree
+     * and itself. Only the cached aggregates of these subtrees are used, which gives O(log n) for a balanced tree.
+     * Tombstones do not contribute, and in multiset mode every occurrence is counted.
+     *
+     * @param lo the lower bound
+     * @param hi the upper bound
+     * @return the aggregate of the values in range, the identity if there are none
+     * @throws IllegalStateException if the aggregates are not enabled
+     */
+    public <A> A aggregate(Comparable lo, Comparable hi) {
+        checkAggregates();
+        Node split = root;
+        while (split != null) {
+            if (hi.compareTo(split.getData()) < 0) split = split.getLeft();
+            else if (lo.compareTo(split.getData()) > 0) split = split.getRight();
+            else break;
+        }
+        if (split == null) return (A) aggregator.identity();
+
+        // the contributions of a lower node on the path of lo are smaller, so they are combined on the left
+        Object left = aggregator.identity();
+        for (Node n = split.getLeft(); n != null; ) {
+            if (lo.compareTo(n.getData()) <= 0) {
+                left = aggregator.combine(aggregator.combine(valueAggregateOf(n), aggregateOf(n.getRight())), left);
+                n = n.getLeft();
+            } else {
+                n = n.getRight();
+            }
+        }
+        Object right = aggregator.identity();
+        for (Node n = split.getRight(); n != null; ) {
+            if (hi.compareTo(n.getData()) >= 0) {
+                right = aggregator.combine(right, aggregator.combine(aggregateOf(n.getLeft()), valueAggregateOf(n)));
+                n = n.getRight();
+            } else {
+                n = n.getLeft();
+            }
+        }
+        return (A) aggregator.combine(aggregator.combine(left, valueAggregateOf(split)), right);
+    }
+
+    private void checkAggregates() {
+        if (aggregator == null) throw new IllegalStateException("The aggregates are not enabled");
+    }
+
+    /**
+     * Recomputes the cached aggregate of the node from its value and the cached aggregates of its children.
+     * Does nothing if the aggregates are disabled.
+     */
+    protected void updateAggregate(Node n) {
+        if (aggregator == null) return;
+        Object aggregate = aggregator.combine(aggregateOf(n.getLeft()), valueAggregateOf(n));
+        n.setAggregate(aggregator.combine(aggregate, aggregateOf(n.getRight())));
+    }
+
+    /**
+     * Recomputes the cached aggregates of the node and of all its ancestors, e.g. after the subtree of the node
+     * has changed. Does nothing if the aggregates are disabled.
+     */
+    protected void updateAggregatesFrom(Node n) {
+        if (aggregator == null) return;
+        for (; n != null; n = n.getParent()) updateAggregate(n);
+    }
+
+    /**
+     * @return the cached aggregate of the subtree, the identity for an empty subtree or a nullNode, which is only
+     * a placeholder during a deletion and never gets an aggregate
+     */
+    private Object aggregateOf(Node n) {
+        return n == null || n.getData() == null ? aggregator.identity() : n.getAggregate();
+    }
+
+    /**
+     * @return the aggregate of the value of the node alone, the identity for a tombstone or a nullNode
+     */
+    private Object valueAggregateOf(Node n) {
+        if (n.isTombstone() || n.getData() == null) return aggregator.identity();
+        return aggregator.of(n.getData(), n.getCount());
+    }
+
+    /**
+     * Starts recording every structural change (a new node, a link, a rotation, a color or a value) in a compact
+     * {@link ChangeLog}, in which {@link ChangeLog#frame()} marks the states to be rendered later, e.g. one DOT file
+     * per operation of a replayed trace. The current tree is the first frame.
+     *
+     * @return the log, the same one until {@link BinaryTree#stopRecording()}
+     */
+    public ChangeLog recordChanges() {
+        if (changeLog == null) changeLog = new ChangeLog(this);
+        return changeLog;
+    }
+
+    /**
+     * Stops the recording. The frames of the log can still be rendered.
+     */
+    public void stopRecording() {
+        if (changeLog == null) return;
+        changeLog.stop();
+        changeLog = null;
+    }
+
+    /**
+     * Recycles the nodes: a node that is removed from the tree (by a deletion, a compaction or a range deletion) is
+     * cleared and kept in the pool, and the next insertion takes it instead of allocating a new one. This also
+     * covers the temporary nullNode of a deletion.
+     * <p>
+     * A recycled node may end up at another place of the tree with another value, so a reference to a removed
+     * node must not be kept. The {@link TreeCursor} copes with that, because it only follows the current links.
+     * </p>
+     *
+     * @param pool the pool, which may be shared with other trees, see {@link NodePool} for the thread-safety
+     */
+    public void enableNodePool(NodePool pool) {
+        this.nodePool = pool;
+    }
+
+    public void disableNodePool() {
+        nodePool = null;
+    }
+
+    public NodePool getNodePool() {
+        return nodePool;
+    }
+
+    /**
+     * Creates the node of a new value, recycled from the {@link NodePool} if it is enabled.
+     * The concrete trees use it instead of the constructor of {@link Node}.
+     *
+     * @param color the color of the node, null for the trees without colors
+     */
+    protected Node createNode(Comparable data, Node.COLOR color) {
+        return nodePool == null ? new Node(data, color) : nodePool.acquire(data, color);
+    }
+
+    /**
+     * Gives a node back to the {@link NodePool}, e.g. a new node that has not been inserted, because its value
+     * is already in the tree. A node that is still linked is not recycled.
+     */
+    protected void recycle(Node n) {
+        if (nodePool != null && n != null && n != root && n.getParent() == null && n.isLeaf()) nodePool.release(n);
+    }
+
+    /**
+     * Physically removes all tombstones with the deletion of the concrete tree (e.g. including the rotations of the
+     * {@link AVLTree} or the fixup of the {@link RBTree}), so that the tree is balanced again afterward.
+     *
+     * @return the number of removed nodes
+     */
+    public int compact() {
+        if (tombstones == 0) return 0;
+        ArrayList<Comparable> dead = new ArrayList<>(tombstones);
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        Node n = root;
+        while (n != null || !stack.isEmpty()) {
+            while (n != null) {
+                stack.push(n);
+                n = n.getLeft();
+            }
+            n = stack.pop();
+            if (n.isTombstone()) dead.add(n.getData());
+            n = n.getRight();
+        }
+        // a deletion can move values between nodes, so every tombstone is searched again by its value
+        for (Comparable x : dead) unlink(findNode(x));
+        tombstones = 0;
+        return dead.size();
+    }
+
+    /**
+     * @param x the target value
+     * @return the node that holds x, otherwise null
+     */
+    protected Node findNode(Comparable x) {
+        Node k = root;
+        while (k != null) {
+            int compare = x.compareTo(k.getData());
+            if (compare == 0) return k;
+            k = compare < 0 ? k.getLeft() : k.getRight();
+        }
+        return null;
+    }
+
     /**
      * A search function to look if the value x exist in the tree. <p>
      * inspired from: AlgoDS Lecture HS Fulda 24/25
@@ -58,6 +538,7 @@ public abstract class BinaryTree {
      * @return the same value if found, otherwise null
      */
     public Comparable lookup(Comparable x) {
+        if (isDefinitelyAbsent(x)) return null;
         Node k = root;
         while(k != null) {
             if(x.compareTo(k.getData()) < 0) { // x is smaller than k
@@ -65,43 +546,114 @@ public abstract class BinaryTree {
             } else if(x.compareTo(k.getData()) > 0){ // x is bigger than k
                 k = k.getRight();
             } else if(x.compareTo(k.getData()) == 0) {
-                return k.getData();
+                if (!k.isTombstone()) return k.getData();
+                break;
             }
         }
+        recordBloomFalsePositive();
         return null;
     }
 
+    /**
+     * Creates a finger for clustered lookups, which starts every search from the last visited node
+     * instead of the root. Each cursor should only be used by one thread.
+     *
+     * @return a new cursor of this tree
+     */
+    public TreeCursor cursor() {
+        return new TreeCursor(this);
+    }
+
+    /**
+     * Creates an immutable, array-backed copy of the current keys, which is optimised for read-only lookups.
+     * Later changes to this tree are not visible in the returned index.
+     * The in-order walk is iterative, so that a degenerated tree does not overflow the stack.
+     *
+     * @return the frozen search index of this tree
+     */
+    public FrozenTree freeze() {
+        ArrayList<Comparable> sorted = new ArrayList<>();
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        Node n = root;
+        while (n != null || !stack.isEmpty()) {
+            while (n != null) {
+                stack.push(n);
+                n = n.getLeft();
+            }
+            n = stack.pop();
+            if (!n.isTombstone()) sorted.add(n.getData());
+            n = n.getRight();
+        }
+        return new FrozenTree(sorted.toArray(new Comparable[0]));
+    }
+
     /**
      * <p>
      * Insert the node into the tree without any self-balancing methods.
      * After the execution, the newNode will have a parent if root != null. </p>
      * <p>With this implementation without the wrapper, it can compare the objects
      * whether it is char or int</p>
+     * <p>If the value is already in the tree, the newNode is not added and the existing node is returned.</p>
      * inspired from: AlgoDS Lecture HS Fulda 24/25
      * @param newNode will be added to the tree
+     * @return the node that holds the value after the execution, which is not the newNode for a duplicate
      */
-    protected void insertNode(Node newNode) {
-        if(root == null)
+    protected Node insertNode(Node newNode) {
+        if(root == null) {
+            if (changeLog != null) changeLog.created(newNode);
             root = newNode;
-        else {
+        } else {
             Node parent = getParentOf(newNode.getData());
+            int compare = newNode.getData().compareTo(parent.getData());
+            if (compare == 0) return parent; // the value is already in the tree
+            if (changeLog != null) changeLog.created(newNode);
 
-            if(newNode.getData().compareTo(parent.getData()) < 0) {
+            if(compare < 0) {
                 parent.setLeft(newNode);
-            } else if(newNode.getData().compareTo(parent.getData()) > 0) {
+            } else {
                 parent.setRight(newNode);
-            } else throw new TreeException("The value is already in the tree. No Parent will be returned");
+            }
+        }
+        size++;
+        if (bloomFilter != null) addToBloomFilter(newNode.getData());
+        updateAggregatesFrom(newNode);
+        return newNode;
+    }
+
+    /**
+     * Handles a value that is already in the tree, after {@link BinaryTree#insertNode(Node)} has returned
+     * the existing node. A tombstone is revived. In multiset mode, only the count of the node is incremented.
+     * In both cases, no new node is created and the tree does not need to be rebalanced.
+     *
+     * @param existing the node that already holds the value
+     * @return true if the value has been added, false if the duplicate is rejected
+     */
+    protected boolean addDuplicate(Node existing) {
+        if (existing.isTombstone()) {
+            existing.setTombstone(false);
+            tombstones--;
+            size++;
+            // the filter might have been rebuilt without the tombstone
+            if (bloomFilter != null) addToBloomFilter(existing.getData());
+            updateAggregatesFrom(existing);
+            return true;
         }
+        if (!multiset) return false;
+        existing.setCount(existing.getCount() + 1);
+        size++;
+        updateAggregatesFrom(existing);
+        return true;
     }
 
     /**
      * This function is intended for insert method. (top-down approach)
      * Iterate through the nodes of the tree to find a parent node where a new node with the value x can be attached.
-     * If the value of a node is the same as x, the function should return an error message, as duplicate values are not accepted. <p>
+     * If the value of a node is the same as x, the search stops and this node is returned,
+     * as duplicate values are not accepted. <p>
      *     inspired from: AlgoDS Lecture HS Fulda 24/25
      * </p>
      * @param x The value that needs to be attached to the parent
-     * @return the available parent
+     * @return the available parent, or the node with the same value as x
      */
     protected Node getParentOf(Comparable x) {
         Node parent = null;
@@ -113,7 +665,7 @@ public abstract class BinaryTree {
             } else if (x.compareTo(n.getData()) > 0) { // x is bigger than n
                 n = n.getRight();
             } else // the value is the same, do not add the value
-                throw new TreeException("The value is already in the tree. No Parent will be returned");
+                return n;
         }
         return parent;
     }
@@ -122,33 +674,260 @@ public abstract class BinaryTree {
      * Deletes a specified element from the binary tree, if it exists.
      * The method searches for the node containing the specified value,
      * removes it, and adjusts the tree to maintain its properties.
+     * A missing value is reported with the return value, so that no exception has to be constructed on the hot path.
+     * In multiset mode, only one occurrence is removed: the count is decremented, and the node is removed at zero.
+     * With {@link BinaryTree#enableLazyDelete(double)}, the node is only marked as a tombstone.
      * <p>Idea inspired from ALgoDS Lecture HS Fulda 24/25</p>
      *
      * @param x the value to be deleted from the binary tree.
-     * @throws TreeException if the tree is empty or the value to delete is not found.
+     * @return true if the value has been deleted, false if it is not in the tree
      */
-    public void delete(Comparable x) throws TreeException {
-        Node target = root;
-        Node parentTarget = null;
-        if(target == null)
-            throw new TreeException("The tree is empty");
+    public boolean remove(Comparable x) {
+        if (isDefinitelyAbsent(x)) return false;
+        Node target = findNode(x);
+        if (target == null || target.isTombstone()) return false;
 
-        CHILD positionOfTarget = null;
-        while(target != null) {
-            if(x.compareTo(target.getData()) < 0) {
-                parentTarget = target;
-                target = parentTarget.getLeft();
-                positionOfTarget = CHILD.leftChildOfParent;
-            } else if(x.compareTo(target.getData()) > 0) {
-                parentTarget = target;
-                target = parentTarget.getRight();
-                positionOfTarget = CHILD.rightChildOfParent;
-            } else if(x.compareTo(target.getData()) == 0) {
-                removeNullNode(deleteTarget(parentTarget, target, positionOfTarget));
-                return;
+        if (target.getCount() > 1) {
+            target.setCount(target.getCount() - 1);
+            updateAggregatesFrom(target);
+        } else {
+            if (isLazyDelete()) {
+                target.setTombstone(true);
+                tombstones++;
+                updateAggregatesFrom(target);
+            } else {
+                unlink(target);
+            }
+            if (bloomFilter != null) countBloomDeletions(1);
+        }
+        size--;
+        if (isLazyDelete() && tombstones > compactionThreshold * (size + tombstones)) compact();
+        return true;
+    }
+
+    /**
+     * Collects all values between lo and hi (both inclusive) in ascending order.
+     * Only the subtrees that overlap the range are visited. Tombstones are skipped, and in multiset mode
+     * a value is collected as often as it is counted.
+     *
+     * @param lo the lower bound
+     * @param hi the upper bound
+     * @return the values in range, empty if lo is greater than hi
+     */
+    @Override
+    public List<Comparable> range(Comparable lo, Comparable hi) {
+        List<Comparable> result = new ArrayList<>();
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        Node n = root;
+        while (n != null || !stack.isEmpty()) {
+            while (n != null) {
+                if (lo.compareTo(n.getData()) <= 0) {
+                    stack.push(n);
+                    n = n.getLeft();
+                } else {
+                    n = n.getRight(); // n and its left subtree are smaller than lo
+                }
+            }
+            if (stack.isEmpty()) break;
+            n = stack.pop();
+            if (hi.compareTo(n.getData()) < 0) break;
+            if (!n.isTombstone()) {
+                for (int i = 0; i < n.getCount(); i++) result.add(n.getData());
+            }
+            n = n.getRight();
+        }
+        return result;
+    }
+
+    /**
+     * Deletes all values between lo and hi (both inclusive) at once.
+     * <p>
+     * The tree is split at lo and at hi with {@link BinaryTree#join(Node, Node, Node)}, and the two outer parts
+     * are joined again. The middle part is dropped as a whole, so that only the nodes along the two boundary paths
+     * are touched and rebalanced, instead of one search and one rebalancing per deleted value. Every join on a path
+     * reads the heights of its two trees by walking them down to a leaf, so a split takes O(log^2 n). The removed
+     * subtree is only walked once to update the size, which gives O(log^2 n + k) for k removed nodes.
+     * </p>
+     * Inspired from: Blelloch, Ferizovic and Sun, Just Join for Parallel Ordered Sets (2016)
+     *
+     * @param lo the lower bound
+     * @param hi the upper bound
+     * @return the number of deleted values, in multiset mode every occurrence is counted
+     */
+    public int deleteRange(Comparable lo, Comparable hi) {
+        if (root == null || lo.compareTo(hi) > 0) return 0;
+        Node t = root;
+        root = null;
+        Node[] lower = split(t, lo, false);
+        Node[] upper = split(lower[1], hi, true);
+        Node removed = upper[0];
+        root = join2(lower[0], upper[1]);
+
+        int deleted = 0;
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        if (removed != null) stack.push(removed);
+        while (!stack.isEmpty()) {
+            Node n = stack.pop();
+            if (n.isTombstone()) tombstones--;
+            else deleted += n.getCount();
+            if (n.getLeft() != null) stack.push(n.getLeft());
+            if (n.getRight() != null) stack.push(n.getRight());
+            // the whole subtree is dropped, so the links between its nodes do not matter anymore
+            if (nodePool != null) nodePool.release(n);
+        }
+        size -= deleted;
+        if (bloomFilter != null && deleted > 0) countBloomDeletions(deleted);
+        return deleted;
+    }
+
+    /**
+     * Splits the detached tree t into two trees with {@link BinaryTree#join(Node, Node, Node)}.
+     * The search path of x is walked down once and then rebuilt bottom-up: every node on the path is joined
+     * with its subtree on the other side of the path.
+     *
+     * @param t           the root of the tree to be split
+     * @param x           the value where the tree is split
+     * @param equalToLeft whether a value equal to x belongs to the left part, otherwise to the right part
+     * @return the root of the part with the smaller values and the root of the part with the bigger values
+     */
+    private Node[] split(Node t, Comparable x, boolean equalToLeft) {
+        ArrayList<Node> path = new ArrayList<>();
+        for (Node n = t; n != null; ) {
+            path.add(n);
+            int compare = x.compareTo(n.getData());
+            if (compare == 0) break;
+            n = compare < 0 ? n.getLeft() : n.getRight();
+        }
+
+        Node left = null;
+        Node right = null;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node n = path.get(i);
+            // the child on the path has already been cut in the previous iteration
+            Node nLeft = n.getLeft();
+            Node nRight = n.getRight();
+            n.setLeft(null);
+            n.setRight(null);
+            if (n.getParent() != null) {
+                if (n.getParent().getLeft() == n) n.getParent().setLeft(null);
+                else n.getParent().setRight(null);
+            }
+
+            int compare = x.compareTo(n.getData());
+            if (compare == 0) {
+                // only the last node of the path can be equal to x, so both parts are still empty
+                if (equalToLeft) {
+                    left = joinWithAggregates(nLeft, n, null);
+                    right = nRight;
+                } else {
+                    left = nLeft;
+                    right = joinWithAggregates(null, n, nRight);
+                }
+            } else if (compare < 0) {
+                right = joinWithAggregates(right, n, nRight);
+            } else {
+                left = joinWithAggregates(nLeft, n, left);
             }
         }
-        throw new TreeException("The value " + x + " could not be found in the tree.");
+        return new Node[]{left, right};
+    }
+
+    /**
+     * Joins two detached trees without a middle node: the biggest node of the left tree (or the smallest node of
+     * the right tree, if the left tree is empty) is split off and becomes the middle node.
+     * Even a single remaining tree goes through {@link BinaryTree#join(Node, Node, Node)}, so that e.g. its root
+     * gets the color of a root.
+     *
+     * @param left  the root of the tree with the smaller values, possibly null
+     * @param right the root of the tree with the bigger values, possibly null
+     * @return the root of the joined tree
+     */
+    private Node join2(Node left, Node right) {
+        if (left != null) {
+            Node max = left;
+            while (max.getRight() != null) max = max.getRight();
+            Node[] parts = split(left, max.getData(), false);
+            return joinWithAggregates(parts[0], parts[1], right);
+        }
+        if (right == null) return null;
+        Node min = right;
+        while (min.getLeft() != null) min = min.getLeft();
+        Node[] parts = split(right, min.getData(), true);
+        return joinWithAggregates(null, parts[0], parts[1]);
+    }
+
+    /**
+     * Calls {@link BinaryTree#join(Node, Node, Node)} and recomputes the aggregates above the middle node, the only
+     * subtrees whose values have changed. The middle node is attached where the heights of both trees match, so the
+     * path is about as long as the difference of their heights. Reading the heights costs O(log n) per join in the
+     * {@link AVLTree} and the {@link RBTree}, which makes a split O(log^2 n) in total.
+     */
+    private Node joinWithAggregates(Node left, Node middle, Node right) {
+        Node joined = join(left, middle, right);
+        updateAggregatesFrom(middle);
+        return joined;
+    }
+
+    /**
+     * Joins two detached trees and a single detached node between them into one tree, where all values of left
+     * are smaller than middle and all values of right are bigger. A balanced tree has to restore its balance
+     * along the spine where middle is attached. This default implementation simply attaches both trees
+     * to the middle node, without any balancing.
+     *
+     * @param left   the root of the tree with the smaller values, possibly null
+     * @param middle a node without parent and children
+     * @param right  the root of the tree with the bigger values, possibly null
+     * @return the root of the joined tree, without a parent
+     */
+    protected Node join(Node left, Node middle, Node right) {
+        middle.setLeft(left);
+        middle.setRight(right);
+        return middle;
+    }
+
+    /**
+     * Removes the node from the tree with {@link BinaryTree#deleteTarget(Node, Node, CHILD)} of the concrete tree.
+     *
+     * @param target the node to be removed
+     */
+    private void unlink(Node target) {
+        Node parentTarget = target.getParent();
+        CHILD positionOfTarget = null;
+        if (parentTarget != null) {
+            positionOfTarget = parentTarget.getLeft() == target ? CHILD.leftChildOfParent : CHILD.rightChildOfParent;
+        }
+        // the node that is physically removed is the target, or the smallest node of its right subtree,
+        // whose value moves into the target
+        Node smallest = null;
+        Node lowestChanged = parentTarget;
+        if ((aggregator != null || nodePool != null) && target.getLeft() != null && target.getRight() != null) {
+            smallest = target.getRight();
+            while (smallest.getLeft() != null) smallest = smallest.getLeft();
+            lowestChanged = smallest.getParent();
+        }
+        removeNullNode(deleteTarget(parentTarget, target, positionOfTarget));
+        if (aggregator != null) {
+            // the rotations of the rebalancing keep every changed subtree above this node
+            updateAggregatesFrom(lowestChanged);
+            // the SplayTree joins the subtrees at a new root instead, which is not necessarily above it
+            if (root != null) updateAggregate(root);
+        }
+        // only the detached one of both is recycled, e.g. the SplayTree removes the target itself
+        recycle(target);
+        recycle(smallest);
+    }
+
+    /**
+     * Same as {@link BinaryTree#remove(Comparable)}, but the outcome is reported with an exception.
+     *
+     * @param x the value to be deleted from the binary tree.
+     * @throws TreeException if the tree is empty or the value to delete is not found.
+     */
+    @Override
+    public void delete(Comparable x) throws TreeException {
+        if(root == null)
+            throw new TreeException("The tree is empty");
+        SearchTree.super.delete(x);
     }
 
     /**
@@ -171,8 +950,7 @@ public abstract class BinaryTree {
      */
     protected Node deleteTargetWithOneChildOrNone(Node parentTarget, Node target, CHILD positionOfTarget) {
         Node replacement = target.getRight() == null ? target.getLeft() : target.getRight();
-        Node nullNode = new Node(null, Node.COLOR.BLACK);
-        replacement = replacement == null ? nullNode : replacement;
+        if (replacement == null) replacement = createNode(null, Node.COLOR.BLACK);
         if(parentTarget != null) {
             // Case 0 and 1 from the Lecture
             switch (positionOfTarget) {
@@ -181,6 +959,9 @@ public abstract class BinaryTree {
             }
         } else {
             // If the target is root, then the replacement becomes the root
+            // and must not keep the old root as its parent
+            if (replacement == target.getLeft()) target.setLeft(null);
+            else if (replacement == target.getRight()) target.setRight(null);
             root = replacement;
         }
         return replacement;
@@ -232,10 +1013,60 @@ public abstract class BinaryTree {
             parent.setLeft(result.getRight());
         }
 
-        target.setData(result.getData());
+        target.copyValueOf(result);
         return parent;
     }
 
+    /**
+     * Iterates over the values in ascending order. Tombstones are skipped, and in multiset mode a value is
+     * returned as often as it is counted. The tree must not be changed during the iteration.
+     *
+     * @return an in-order iterator over the values of this tree
+     */
+    @Override
+    public Iterator<Comparable> iterator() {
+        return new Iterator<>() {
+            private final ArrayDeque<Node> stack = new ArrayDeque<>();
+            private Node next;
+            private int remaining;
+
+            {
+                pushLeft(root);
+                advance();
+            }
+
+            private void pushLeft(Node n) {
+                for (; n != null; n = n.getLeft()) stack.push(n);
+            }
+
+            private void advance() {
+                next = null;
+                while (!stack.isEmpty()) {
+                    Node n = stack.pop();
+                    pushLeft(n.getRight());
+                    if (!n.isTombstone()) {
+                        next = n;
+                        remaining = n.getCount();
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Comparable next() {
+                if (next == null) throw new NoSuchElementException();
+                Comparable data = next.getData();
+                if (--remaining == 0) advance();
+                return data;
+            }
+        };
+    }
+
     /**
      * Constructs a tree structure that mirrors the current binary tree
      * and returns the root of the corresponding TreePrinter object.
@@ -279,6 +1110,7 @@ public abstract class BinaryTree {
      * @param z the root of rotation
      */
     protected void leftRotate(Node z) {
+        if (changeLog != null) changeLog.rotating(z, true);
         Node y = z.getRight();
         Node T2 = y.getLeft();
 
@@ -287,7 +1119,10 @@ public abstract class BinaryTree {
         z.setRight(T2);
         y.setLeft(z);
         if (root == z) root = y;
-        updateHeightAfterRotation(z,y);
+        if (changeLog != null) changeLog.rotated();
+        // z is the child of y now, so it is recomputed first
+        updateAggregate(z);
+        updateAggregate(y);
     }
 
     /**
@@ -297,6 +1132,7 @@ public abstract class BinaryTree {
      * @param z the root of rotation
      */
     protected void rightRotate(Node z) {
+        if (changeLog != null) changeLog.rotating(z, false);
         Node y = z.getLeft();
         Node T3 = y.getRight();
 
@@ -305,7 +1141,9 @@ public abstract class BinaryTree {
         z.setLeft(T3);
         y.setRight(z);
         if (root == z) root = y;
-        updateHeightAfterRotation(z,y);
+        if (changeLog != null) changeLog.rotated();
+        updateAggregate(z);
+        updateAggregate(y);
     }
 
     /**
@@ -324,35 +1162,11 @@ public abstract class BinaryTree {
         }
     }
 
-    /**
-     * Special function only for the rightRotate and leftRotate
-     * function only!
-     * @param z node
-     * @param y node
-     */
-    private static void updateHeightAfterRotation(Node z, Node y) {
-        z.setHeight(Math.max(height(z.getLeft()),
-                height(z.getRight()) + 1));
-        y.setHeight(Math.max(height(y.getLeft()),
-                height(y.getRight())) + 1);
-    }
-
-    /**
-     *  This function should only be used to calculate balance factor or updating height after insertion or deletion
-     *  to reduce redundancy.
-     *  </p>
-     *  If return of the height is 0, it could mean two things. Either the node is the leaf or n is unavailable
-     * @param n the target node
-     * @return the height of n
-     */
-    static int height(Node n) {
-        return n == null ? 0 : n.getHeight() ;
-    }
-
     private void removeNullNode(Node node) {
         if(node != null && node.getParent() != null && node.getData() == null ) {
             if(node.getParent().getLeft() == node) node.getParent().setLeft(null);
             else node.getParent().setRight(null);
+            recycle(node);
         }
     }
 
@@ -361,16 +1175,16 @@ public abstract class BinaryTree {
      * given node.
      * The DOT format is used for visualizing graphs. In this case for visualizing
      * the binary tree.
-     * This method will be extended by {@link BinaryTree#exportDOT(String)} to
+     * This method will be extended by {@link BinaryTree#writeDOT(Node, Writer)} to
      * generate a complete DOT representation.
      *
      * @param node     The current node in the binary tree.
-     * @param writer  The StringBuilder used to accumulate the DOT representation.
+     * @param writer   The Writer used to accumulate the DOT representation.
      * @param depth    The current depth of the node in the tree.
      * @param depthMap A map that groups nodes by their depth for rank=same grouping
      *                 in DOT.
      */
-    private void generateDOT(Node node, BufferedWriter writer, int depth, Map<Integer, List<String>> depthMap) throws IOException {
+    private static void generateDOT(Node node, Writer writer, int depth, Map<Integer, List<String>> depthMap) throws IOException {
         if (node != null) {
             // Node color logic
             String fillColor;
@@ -397,7 +1211,8 @@ public abstract class BinaryTree {
                 generateDOT(node.getLeft(), writer, depth + 1, depthMap);
             } else if (node.getRight() != null) {
                 // Invisible edge to represent missing left child
-                String nilId = "NIL_" + System.identityHashCode(node) + "_left";
+                // named after the value, so that the same tree always gives the same file
+                String nilId = "NIL_" + node.getData() + "_left";
                 writer.write(String.format("    \"%s\" [shape=circle, style=invis, fillcolor=black, width=0.1, height=0.1, label=\"\"];\n", nilId));
                 writer.write(String.format("    \"%s\" -> \"%s\" [style=invis];\n", node.getData().toString(), nilId));
             }
@@ -409,7 +1224,7 @@ public abstract class BinaryTree {
                 generateDOT(node.getRight(), writer, depth + 1, depthMap);
             } else if (node.getLeft() != null) {
                 // Invisible edge to represent missing right child
-                String nilId = "NIL_" + System.identityHashCode(node) + "_right";
+                String nilId = "NIL_" + node.getData() + "_right";
                 writer.write(String.format("    \"%s\" [shape=circle, style=invis, fillcolor=black, width=0.1, height=0.1, label=\"\"];\n", nilId));
                 writer.write(String.format("    \"%s\" -> \"%s\" [style=invis];\n", node.getData().toString(), nilId));
             }
@@ -425,10 +1240,77 @@ public abstract class BinaryTree {
      * The method generates DOT representation for the nodes and records their depth
      * levels.
      * It also ensures that nodes at the same depth level are ranked the same in the
-     * DOT output.
+     * DOT output. For one file per operation of a long replay, see {@link BinaryTree#recordChanges()}.
      *
      */
     public void exportDOT(String filename) throws IOException {
+        exportDOT(root, filename);
+    }
+
+    /**
+     * @return the tree in the DOT format, the same as the content of {@link BinaryTree#exportDOT(String)}
+     */
+    public String toDOT() {
+        return toDOT(root);
+    }
+
+    /**
+     * Copies the structure of the tree into flat arrays in O(n) without creating any node, e.g. to format it
+     * later on another thread.
+     *
+     * @return the immutable copy of the current tree
+     */
+    public TreeSnapshot snapshot() {
+        // an upper bound of the nodes without multiset counts
+        return TreeSnapshot.of(root, size + tombstones);
+    }
+
+    /**
+     * Same as {@link BinaryTree#exportDOTAsync(String, Executor)} on a single background thread, which is shared by
+     * all trees, so that the exports are written one after another without occupying the common pool with I/O.
+     */
+    public CompletableFuture<Path> exportDOTAsync(String filename) {
+        return exportDOTAsync(filename, ExportThread.EXECUTOR);
+    }
+
+    /**
+     * Exports the tree like {@link BinaryTree#exportDOT(String)}, but only the {@link TreeSnapshot} is taken on the
+     * calling thread, which is an order of magnitude faster than the export. The formatting and the writing run on
+     * the executor, so a caller that holds the lock of the tree can release it right after this method returns,
+     * and later changes of the tree are not visible in the file.
+     *
+     * @param filename the path of the file, missing directories are created
+     * @param executor runs the formatting and the writing
+     * @return completes with the path of the file, or exceptionally with the {@link IOException}
+     */
+    public CompletableFuture<Path> exportDOTAsync(String filename, Executor executor) {
+        TreeSnapshot snapshot = snapshot();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                snapshot.exportDOT(filename);
+                return Paths.get(filename);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * The background thread of {@link BinaryTree#exportDOTAsync(String)}, only started by the first export.
+     * It is a daemon thread, so that it does not keep the JVM alive.
+     */
+    private static final class ExportThread {
+        static final Executor EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tree-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Writes the DOT file of the tree below root, e.g. of this tree or of a frame rendered by a {@link ChangeLog}.
+     */
+    static void exportDOT(Node root, String filename) throws IOException {
         Path filePath = Paths.get(filename);
         try {
             // Ensure parent directories exist
@@ -437,23 +1319,7 @@ public abstract class BinaryTree {
                 Files.createDirectories(filePath.getParent());
 
             try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-                Map<Integer, List<String>> depthMap = new HashMap<>();
-                writer.write("digraph Tree {\n");
-                writer.write("    node [shape=circle];\n");
-
-                // Generate DOT for nodes and record depth levels
-                generateDOT(root, writer, 0, depthMap);
-
-                // Add rank=same for nodes at the same depth
-                for (Map.Entry<Integer, List<String>> entry : depthMap.entrySet()) {
-                    writer.write("    { rank=same; ");
-                    for (String nodeId : entry.getValue()) {
-                        writer.write(String.format("\"%s\" ", nodeId));
-                    }
-                    writer.write("}\n");
-                }
-
-                writer.write("}\n");
+                writeDOT(root, writer);
                 writer.flush();
             }
         } catch (Exception e) {
@@ -461,9 +1327,33 @@ public abstract class BinaryTree {
         }
     }
 
+    static String toDOT(Node root) {
+        StringWriter writer = new StringWriter();
+        try {
+            writeDOT(root, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringWriter does not throw
+        }
+        return writer.toString();
+    }
 
+    private static void writeDOT(Node root, Writer writer) throws IOException {
+        Map<Integer, List<String>> depthMap = new HashMap<>();
+        writer.write("digraph Tree {\n");
+        writer.write("    node [shape=circle];\n");
 
+        // Generate DOT for nodes and record depth levels
+        generateDOT(root, writer, 0, depthMap);
 
+        // Add rank=same for nodes at the same depth
+        for (Map.Entry<Integer, List<String>> entry : depthMap.entrySet()) {
+            writer.write("    { rank=same; ");
+            for (String nodeId : entry.getValue()) {
+                writer.write(String.format("\"%s\" ", nodeId));
+            }
+            writer.write("}\n");
+        }
 
+        writer.write("}\n");
+    }
 }
-
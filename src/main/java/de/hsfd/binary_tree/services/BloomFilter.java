@@ -0,0 +1,168 @@
+package de.hsfd.binary_tree.services;
+
+/**
+ * A blocked Bloom filter in front of a {@link BinaryTree}, which answers most lookups of absent values in O(1)
+ * instead of a full descent. "Absent" is certain, "maybe present" has to be checked in the tree.
+ * <p>
+ * All bits of one value lie in the same block of 512 bits (one cache line), so a query touches one cache line
+ * instead of k random ones. This costs a slightly higher false-positive rate than a classic Bloom filter of the
+ * same size. The bits of a deleted value cannot be cleared, so the owning tree rebuilds the filter from its values
+ * after enough deletions, see {@link BinaryTree#enableBloomFilter(double)}.
+ * </p>
+ * <p>
+ * The values must implement {@link Object#hashCode()} consistently with {@link Comparable#compareTo(Object)}:
+ * values that compare as equal must have the same hash code.
+ * </p>
+ * Inspired from: Putze, Sanders and Singler, Cache-, Hash- and Space-Efficient Bloom Filters (2007)
+ */
+public class BloomFilter {
+
+    private static final int BLOCK_BITS = 512;
+    private static final int LONGS_PER_BLOCK = BLOCK_BITS / Long.SIZE;
+    private static final int MAX_HASHES = 16;
+
+    private final long[] bits;
+    private final int blocks;
+    private final int hashes;
+    private final int capacity;
+    private int insertions;
+
+    private long queries;
+    private long negatives;
+    private long falsePositives;
+
+    /**
+     * @param capacity          the number of values for which the false-positive rate is reached
+     * @param falsePositiveRate the targeted rate between 0 and 1, e.g. 0.01
+     */
+    public BloomFilter(int capacity, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1))
+            throw new IllegalArgumentException("The false-positive rate must be between 0 and 1, but was " + falsePositiveRate);
+        this.capacity = Math.max(capacity, 1);
+        // the optimal size m = -n ln(p) / ln(2)^2 and number of hash functions k = m / n ln(2)
+        double bitsPerValue = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long totalBits = (long) Math.ceil(this.capacity * bitsPerValue);
+        this.blocks = (int) Math.max(1, (totalBits + BLOCK_BITS - 1) / BLOCK_BITS);
+        this.bits = new long[blocks * LONGS_PER_BLOCK];
+        this.hashes = (int) Math.min(MAX_HASHES, Math.max(1, Math.round(bitsPerValue * Math.log(2))));
+    }
+
+    public void add(Object value) {
+        long hash = mix(value.hashCode());
+        int offset = blockOf(hash) * LONGS_PER_BLOCK;
+        long second = mix(hash);
+        int h1 = (int) second;
+        int h2 = (int) (second >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            bits[offset + (bit >>> 6)] |= 1L << bit;
+        }
+        insertions++;
+    }
+
+    /**
+     * @return false if the value has definitely not been added, true if it might have been added
+     */
+    public boolean mightContain(Object value) {
+        queries++;
+        long hash = mix(value.hashCode());
+        int offset = blockOf(hash) * LONGS_PER_BLOCK;
+        long second = mix(hash);
+        int h1 = (int) second;
+        int h2 = (int) (second >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            if ((bits[offset + (bit >>> 6)] & 1L << bit) == 0) {
+                negatives++;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts a query, for which the filter answered "maybe", but the value was not in the tree.
+     */
+    void recordFalsePositive() {
+        falsePositives++;
+    }
+
+    /**
+     * @return the number of added values, including those that have been deleted from the tree since
+     */
+    public int insertions() {
+        return insertions;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    /**
+     * @return the size of the bit array in bytes
+     */
+    public long memoryBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    /**
+     * @return the false-positive rate expected from the share of set bits, (set bits / all bits)^k
+     */
+    public double expectedFalsePositiveRate() {
+        long set = 0;
+        for (long word : bits) set += Long.bitCount(word);
+        return Math.pow((double) set / ((long) bits.length * Long.SIZE), hashes);
+    }
+
+    /**
+     * @return the share of the queries for absent values, which were not filtered, 0 before the first such query
+     */
+    public double observedFalsePositiveRate() {
+        long absent = negatives + falsePositives;
+        return absent == 0 ? 0 : (double) falsePositives / absent;
+    }
+
+    public long queries() {
+        return queries;
+    }
+
+    /**
+     * @return the number of queries answered with "absent" without a lookup in the tree
+     */
+    public long negatives() {
+        return negatives;
+    }
+
+    public long falsePositives() {
+        return falsePositives;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BloomFilter{insertions=%d, capacity=%d, hashes=%d, memoryBytes=%d, queries=%d, negatives=%d, "
+                        + "falsePositives=%d, observedFalsePositiveRate=%.4f, expectedFalsePositiveRate=%.4f}",
+                insertions, capacity, hashes, memoryBytes(), queries, negatives, falsePositives,
+                observedFalsePositiveRate(), expectedFalsePositiveRate());
+    }
+
+    private int blockOf(long hash) {
+        // the upper 32 bits scaled to [0, blocks) without a division
+        return (int) (((hash >>> 32) * blocks) >>> 32);
+    }
+
+    /**
+     * The finalizer of MurmurHash3, so that similar hash codes (e.g. consecutive Integers) spread over all bits.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,363 @@
+package de.hsfd.binary_tree.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Records the structural changes of a {@link BinaryTree} as a compact log, so that the state of the tree after any
+ * marked operation (a frame) can be rendered later, e.g. to animate a replayed trace with one DOT file per operation.
+ * Exporting the whole tree after every operation instead costs O(n) per operation, O(n^2) for a replay.
+ * <p>
+ * The nodes of a recorded tree report every new link, color and value to the log, and a rotation is recorded as
+ * one event instead of its three links. An event is a few ints, and marking a frame only stores its end in the log.
+ * The node ids are assigned in the order of creation, and the temporary nullNode of a deletion is recorded as
+ * a missing child.
+ * </p>
+ * <p>
+ * The log keeps the current state as arrays indexed by the node ids, and copies them as a keyframe whenever the
+ * events since the last keyframe outnumber the nodes several times. A frame is rendered from the nearest keyframe
+ * before it plus the events in between, so the rendering costs O(n + events since the keyframe), no matter how many
+ * frames have been recorded before.
+ * </p>
+ * Inspired from: the keyframes and deltas of video codecs, and the redo log of a database
+ */
+@SuppressWarnings("rawtypes")
+public class ChangeLog {
+
+    private static final int NEW = 0;
+    private static final int LINK = 1;
+    private static final int ROTATE = 2;
+    private static final int COLOR = 3;
+    private static final int VALUE = 4;
+    /**
+     * The operation is stored in the lowest bits of the first int of an event, its small argument
+     * (e.g. left or right, or the color) above them.
+     */
+    private static final int OPERATION_BITS = 4;
+    private static final int NONE = -1;
+    /**
+     * A keyframe is taken, when the events since the last keyframe have more ints than this factor times the nodes,
+     * so that copying the keyframes costs O(1) amortized per event.
+     */
+    private static final int KEYFRAME_FACTOR = 8;
+
+    private final BinaryTree tree;
+    /**
+     * The ids of the recorded nodes, null after {@link ChangeLog#stop()}.
+     */
+    private IdentityHashMap<Node, Integer> ids = new IdentityHashMap<>();
+    private final ArrayList<Comparable> values = new ArrayList<>();
+    private int[] events = new int[1024];
+    private int length;
+    private int[] frameEnds = new int[64];
+    private int[] frameRoots = new int[64];
+    private int frames;
+    private final ArrayList<State> keyframes = new ArrayList<>();
+    private final State current = new State();
+    /**
+     * True during a rotation, whose links are not recorded one by one.
+     */
+    private boolean muted;
+
+    /**
+     * Starts recording with the current tree as the first frame (frame 0). The nodes are registered in pre-order.
+     */
+    ChangeLog(BinaryTree tree) {
+        this.tree = tree;
+        ArrayList<Node> stack = new ArrayList<>();
+        if (tree.root != null) stack.add(tree.root);
+        while (!stack.isEmpty()) {
+            Node n = stack.removeLast();
+            created(n);
+            if (n.getParent() != null && ids.containsKey(n.getParent())) {
+                record(LINK, n.getParent().getLeft() == n ? 1 : 0, ids.get(n.getParent()), ids.get(n));
+            }
+            if (n.getRight() != null) stack.add(n.getRight());
+            if (n.getLeft() != null) stack.add(n.getLeft());
+        }
+        // the base is a keyframe itself, its events are not needed anymore
+        length = 0;
+        keyframes.add(current.copy());
+        frame();
+    }
+
+    /**
+     * Marks the current state of the tree as the next frame, e.g. after every operation of a replay.
+     *
+     * @throws IllegalStateException if the recording has been stopped
+     * @return the number of the frame
+     */
+    public int frame() {
+        if (ids == null) throw new IllegalStateException("The recording has been stopped");
+        if (frames == frameEnds.length) {
+            frameEnds = Arrays.copyOf(frameEnds, frames * 2);
+            frameRoots = Arrays.copyOf(frameRoots, frames * 2);
+        }
+        frameEnds[frames] = length;
+        frameRoots[frames] = idOf(tree.root);
+        if (length - keyframes.getLast().position > KEYFRAME_FACTOR * Math.max(current.nodes, 64)) {
+            keyframes.add(current.copy());
+        }
+        return frames++;
+    }
+
+    /**
+     * @return the number of frames, including the first one
+     */
+    public int frames() {
+        return frames;
+    }
+
+    /**
+     * @return the number of recorded ints, without the keyframes
+     */
+    public int length() {
+        return length;
+    }
+
+    public int keyframes() {
+        return keyframes.size();
+    }
+
+    /**
+     * Rebuilds the tree of the frame from detached copies of its nodes. Only the values, the colors and the links
+     * are recorded, the other fields of the copies keep their defaults.
+     *
+     * @param frame the number of the frame
+     * @return the root of the copy, null if the tree was empty
+     */
+    public Node render(int frame) {
+        if (frame < 0 || frame >= frames) throw new IndexOutOfBoundsException("frame " + frame + " of " + frames);
+        int end = frameEnds[frame];
+        // the last keyframe at or before the end of the frame
+        int low = 0;
+        int high = keyframes.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (keyframes.get(middle).position <= end) low = middle;
+            else high = middle - 1;
+        }
+        State state = keyframes.get(low).copy();
+        state.apply(events, state.position, end);
+
+        int root = frameRoots[frame];
+        if (root == NONE) return null;
+        Node[] nodes = new Node[state.nodes];
+        Node copy = state.copyOf(root, nodes);
+        ArrayList<Integer> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            int id = stack.removeLast();
+            if (state.left[id] != NONE) {
+                nodes[id].setLeft(state.copyOf(state.left[id], nodes));
+                stack.add(state.left[id]);
+            }
+            if (state.right[id] != NONE) {
+                nodes[id].setRight(state.copyOf(state.right[id], nodes));
+                stack.add(state.right[id]);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * @param frame the number of the frame
+     * @return the frame in the DOT format, the same as {@link BinaryTree#toDOT()} at the time of the frame
+     */
+    public String toDOT(int frame) {
+        return BinaryTree.toDOT(render(frame));
+    }
+
+    /**
+     * Writes the frame as a DOT file, like {@link BinaryTree#exportDOT(String)} at the time of the frame.
+     *
+     * @param frame    the number of the frame
+     * @param filename the path of the file, missing directories are created
+     */
+    public void exportDOT(int frame, String filename) throws IOException {
+        BinaryTree.exportDOT(render(frame), filename);
+    }
+
+    /**
+     * Ends the recording: the nodes do not report to this log anymore, but the recorded frames can still be rendered.
+     */
+    void stop() {
+        for (Node n : ids.keySet()) n.changeLog = null;
+        ids = null;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeLog{frames=" + frames + ", nodes=" + current.nodes + ", length=" + length
+                + ", keyframes=" + keyframes.size() + "}";
+    }
+
+    /**
+     * Registers a node that is about to be linked into the tree.
+     */
+    void created(Node n) {
+        ids.put(n, current.nodes);
+        n.changeLog = this;
+        values.add(n.getData());
+        record(NEW, colorOf(n.getColor()), values.size() - 1);
+    }
+
+    void linked(Node parent, boolean left, Node child) {
+        if (muted) return;
+        record(LINK, left ? 1 : 0, ids.get(parent), idOf(child));
+    }
+
+    void recolored(Node n, Node.COLOR color) {
+        record(COLOR, colorOf(color), ids.get(n));
+    }
+
+    void valueChanged(Node n, Comparable data) {
+        values.add(data);
+        record(VALUE, 0, ids.get(n), values.size() - 1);
+    }
+
+    /**
+     * Records a rotation as one event and mutes its links, until {@link ChangeLog#rotated()}.
+     */
+    void rotating(Node z, boolean left) {
+        record(ROTATE, left ? 1 : 0, ids.get(z));
+        muted = true;
+    }
+
+    void rotated() {
+        muted = false;
+    }
+
+    private int idOf(Node n) {
+        if (n == null) return NONE;
+        Integer id = ids.get(n);
+        return id == null ? NONE : id; // the nullNode of a deletion is not recorded
+    }
+
+    private static int colorOf(Node.COLOR color) {
+        return color == null ? 0 : color.ordinal() + 1;
+    }
+
+    private void record(int operation, int argument, int... operands) {
+        if (length + 1 + operands.length > events.length) events = Arrays.copyOf(events, events.length * 2);
+        int start = length;
+        events[length++] = operation | argument << OPERATION_BITS;
+        for (int operand : operands) events[length++] = operand;
+        current.apply(events, start, length);
+    }
+
+    /**
+     * The links, colors and values of all recorded nodes, indexed by their ids.
+     */
+    private final class State {
+        /**
+         * The length of the log, up to which the events are applied.
+         */
+        int position;
+        int nodes;
+        int[] left = new int[64];
+        int[] right = new int[64];
+        int[] parent = new int[64];
+        int[] value = new int[64];
+        byte[] color = new byte[64];
+
+        /**
+         * @return a copy of the state of the current log, if this is the current state, otherwise of the same position
+         */
+        State copy() {
+            State copy = new State();
+            copy.position = this == current ? length : position;
+            copy.nodes = nodes;
+            copy.left = Arrays.copyOf(left, nodes);
+            copy.right = Arrays.copyOf(right, nodes);
+            copy.parent = Arrays.copyOf(parent, nodes);
+            copy.value = Arrays.copyOf(value, nodes);
+            copy.color = Arrays.copyOf(color, nodes);
+            return copy;
+        }
+
+        void apply(int[] events, int from, int to) {
+            int i = from;
+            while (i < to) {
+                int operation = events[i] & ((1 << OPERATION_BITS) - 1);
+                int argument = events[i] >>> OPERATION_BITS;
+                switch (operation) {
+                    case NEW -> {
+                        grow();
+                        left[nodes] = right[nodes] = parent[nodes] = NONE;
+                        color[nodes] = (byte) argument;
+                        value[nodes++] = events[i + 1];
+                        i += 2;
+                    }
+                    case LINK -> {
+                        setChild(events[i + 1], argument == 1, events[i + 2]);
+                        i += 3;
+                    }
+                    case ROTATE -> {
+                        rotate(events[i + 1], argument == 1);
+                        i += 2;
+                    }
+                    case COLOR -> {
+                        color[events[i + 1]] = (byte) argument;
+                        i += 2;
+                    }
+                    case VALUE -> {
+                        value[events[i + 1]] = events[i + 2];
+                        i += 3;
+                    }
+                    default -> throw new IllegalStateException("Unknown event " + operation + " at " + i);
+                }
+            }
+        }
+
+        /**
+         * The same steps as {@link Node#setLeft(Node)} and {@link Node#setRight(Node)}: the child is detached from
+         * its old parent, and the replaced child loses its parent.
+         */
+        private void setChild(int p, boolean isLeft, int c) {
+            if (c != NONE) {
+                int q = parent[c];
+                if (q != NONE) {
+                    if (right[q] == c) right[q] = NONE;
+                    else left[q] = NONE;
+                }
+                parent[c] = p;
+            }
+            int old = isLeft ? left[p] : right[p];
+            if (old != NONE) parent[old] = NONE;
+            if (isLeft) left[p] = c;
+            else right[p] = c;
+        }
+
+        /**
+         * The same steps as {@link BinaryTree#leftRotate(Node)} and {@link BinaryTree#rightRotate(Node)}.
+         */
+        private void rotate(int z, boolean isLeft) {
+            int y = isLeft ? right[z] : left[z];
+            int middle = isLeft ? left[y] : right[y];
+            int p = parent[z];
+            if (p != NONE) setChild(p, left[p] == z, y);
+            setChild(z, !isLeft, middle);
+            setChild(y, isLeft, z);
+        }
+
+        private Node copyOf(int id, Node[] nodes) {
+            Node.COLOR c = color[id] == 0 ? null : Node.COLOR.values()[color[id] - 1];
+            Node copy = new Node(values.get(value[id]), c);
+            nodes[id] = copy;
+            return copy;
+        }
+
+        private void grow() {
+            if (nodes < left.length) return;
+            int capacity = Math.max(64, left.length * 2);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            value = Arrays.copyOf(value, capacity);
+            color = Arrays.copyOf(color, capacity);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package de.hsfd.binary_tree.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable, array-backed search index created by {@link BinaryTree#freeze()}.
+ * <p>
+ * The keys are stored in Eytzinger (BFS) order: the root of the implicit tree is at index 1 and the
+ * children of index k are at 2k and 2k+1. The top levels of the tree therefore share the first cache
+ * lines of the array, and a search only follows index arithmetic instead of scattered {@link Node} pointers.
+ * </p>
+ * <p>
+ * The search loop is branch-free: the next index is computed from the sign bit of {@code compareTo}.
+ * Java has no explicit software prefetch, but because the four grandchildren of k are stored next to each
+ * other at 4k..4k+3, the hardware prefetcher picks up the descendants of the next levels on its own.
+ * </p>
+ * Idea inspired from: <a href="https://arxiv.org/abs/1509.05053">Khuong and Morin, Array Layouts for
+ * Comparison-Based Searching</a>
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public final class FrozenTree {
+
+    /**
+     * The keys in Eytzinger order. Index 0 is unused, so that the children of k are always 2k and 2k+1.
+     */
+    private final Comparable[] keys;
+    private final int size;
+
+    /**
+     * @param sorted the keys in ascending order without duplicates
+     */
+    FrozenTree(Comparable[] sorted) {
+        this.size = sorted.length;
+        this.keys = new Comparable[size + 1];
+        fill(sorted, 0, 1);
+    }
+
+    /**
+     * Copies the sorted keys into the Eytzinger layout with an in-order walk over the implicit tree.
+     * The recursion depth is log2(n), so it is safe even for very large indexes.
+     *
+     * @param sorted the keys in ascending order
+     * @param i      the next sorted key to be placed
+     * @param k      the current Eytzinger index
+     * @return the next sorted key to be placed after the subtree of k is filled
+     */
+    private int fill(Comparable[] sorted, int i, int k) {
+        if (k <= size) {
+            i = fill(sorted, i, 2 * k);
+            keys[k] = sorted[i++];
+            i = fill(sorted, i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Searches the index of the smallest key that is greater or equal than x.
+     * <p>
+     * Every iteration goes to the right child, if the key at k is smaller than x, otherwise to the left child.
+     * The bit shift at the end removes the trailing right turns (1 bits) and the last left turn (0 bit),
+     * which leads back to the last node where the search went left.
+     * </p>
+     *
+     * @param x the target value
+     * @return the Eytzinger index of the lower bound, or 0 if all keys are smaller than x
+     */
+    private int lowerBound(Comparable x) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + (keys[k].compareTo(x) >>> 31); // sign bit is 1 if keys[k] < x
+        }
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    /**
+     * Same as {@link FrozenTree#lowerBound(Comparable)}, but for the smallest key that is strictly greater than x.
+     */
+    private int upperBound(Comparable x) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + ((x.compareTo(keys[k]) >>> 31) ^ 1); // goes right if keys[k] <= x
+        }
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    /**
+     * @param k an Eytzinger index
+     * @return the index of the next key in ascending order, or 0 if k is the largest key
+     */
+    private int successor(int k) {
+        if (2 * k + 1 <= size) {
+            k = 2 * k + 1;
+            while (2 * k <= size) k = 2 * k;
+            return k;
+        }
+        // climb as long as k is a right child, then one more step to the parent
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return k;
+    }
+
+    /**
+     * @param k an Eytzinger index
+     * @return the index of the previous key in ascending order, or 0 if k is the smallest key
+     */
+    private int predecessor(int k) {
+        if (2 * k <= size) {
+            k = 2 * k;
+            while (2 * k + 1 <= size) k = 2 * k + 1;
+            return k;
+        }
+        // climb as long as k is a left child, then one more step to the parent
+        k >>>= Integer.numberOfTrailingZeros(k) + 1;
+        return k;
+    }
+
+    private int last() {
+        if (size == 0) return 0;
+        int k = 1;
+        while (2 * k + 1 <= size) k = 2 * k + 1;
+        return k;
+    }
+
+    public boolean contains(Comparable x) {
+        int k = lowerBound(x);
+        return k != 0 && keys[k].compareTo(x) == 0;
+    }
+
+    /**
+     * @param x the target value
+     * @return the largest key that is smaller or equal than x, otherwise null
+     */
+    public Comparable floor(Comparable x) {
+        int k = upperBound(x);
+        k = k == 0 ? last() : predecessor(k);
+        return k == 0 ? null : keys[k];
+    }
+
+    /**
+     * @param x the target value
+     * @return the smallest key that is greater or equal than x, otherwise null
+     */
+    public Comparable ceiling(Comparable x) {
+        int k = lowerBound(x);
+        return k == 0 ? null : keys[k];
+    }
+
+    /**
+     * Collects all keys between lo and hi (both inclusive) in ascending order.
+     * The first key is found with one search, the others are visited with the in-order successor
+     * of the implicit tree, which touches O(1) amortized indexes per key.
+     *
+     * @param lo the lower bound
+     * @param hi the upper bound
+     * @return the keys in range, empty if lo is greater than hi
+     */
+    public List<Comparable> range(Comparable lo, Comparable hi) {
+        List<Comparable> result = new ArrayList<>();
+        for (int k = lowerBound(lo); k != 0 && keys[k].compareTo(hi) <= 0; k = successor(k)) {
+            result.add(keys[k]);
+        }
+        return result;
+    }
+}
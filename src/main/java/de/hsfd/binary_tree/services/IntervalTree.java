@@ -0,0 +1,127 @@
+package de.hsfd.binary_tree.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link RBTree} of closed intervals [start, end], ordered by their start, which answers which intervals overlap
+ * a query interval or contain a point without scanning all intervals.
+ * <p>
+ * Every node caches the biggest end in its subtree with the aggregates of {@link BinaryTree#enableAggregates(Aggregator)}
+ * (fixed by the constructor, so they are neither replaced nor disabled), which are recomputed by the rotations of the insert and delete fixups and along the changed path. A query skips
+ * every subtree whose biggest end is before the query, and stops at the first start after the query, because all
+ * following intervals start even later.
+ * </p>
+ * Inspired from: Cormen et al., Introduction to Algorithms, Chapter 14.3 Interval Trees
+ */
+@SuppressWarnings("rawtypes")
+public class IntervalTree extends RBTree {
+
+    /**
+     * A closed interval, ordered by its start and then by its end, so that intervals with the same start can be
+     * stored together.
+     */
+    public record Interval(long start, long end) implements Comparable<Interval> {
+
+        public Interval {
+            if (start > end) throw new IllegalArgumentException("The start " + start + " is after the end " + end);
+        }
+
+        public boolean overlaps(long lo, long hi) {
+            return start <= hi && lo <= end;
+        }
+
+        @Override
+        public int compareTo(Interval other) {
+            int compare = Long.compare(start, other.start);
+            return compare != 0 ? compare : Long.compare(end, other.end);
+        }
+    }
+
+    private static final Aggregator<Long> MAX_END = Aggregator.of(Long.MIN_VALUE, v -> ((Interval) v).end(), Math::max);
+
+    public IntervalTree() {
+        this(false);
+    }
+
+    /**
+     * @param multiset whether an interval that is already in the tree should be counted instead of being rejected
+     */
+    public IntervalTree(boolean multiset) {
+        super(multiset, MAX_END);
+    }
+
+    public boolean add(long start, long end) {
+        return add(new Interval(start, end));
+    }
+
+    public boolean remove(long start, long end) {
+        return remove(new Interval(start, end));
+    }
+
+    /**
+     * Collects all intervals that have at least one point in common with [lo, hi], ordered by their start.
+     * In multiset mode, an interval is collected as often as it is counted.
+     * <p>
+     * The in-order walk only descends into a subtree whose biggest end reaches lo. Each such subtree holds at least
+     * one interval that ends late enough, but it might start after hi, so the walk costs O(min(n, (k + 1) log n))
+     * for k results in the worst case, and close to O(log n + k) if the intervals are not much longer than the
+     * queries.
+     * </p>
+     *
+     * @param lo the start of the query, inclusive
+     * @param hi the end of the query, inclusive
+     * @return the overlapping intervals, empty if lo is after hi
+     */
+    public List<Interval> overlapping(long lo, long hi) {
+        List<Interval> result = new ArrayList<>();
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        Node n = root;
+        while (n != null || !stack.isEmpty()) {
+            while (n != null && maxEndOf(n) >= lo) {
+                stack.push(n);
+                n = n.getLeft();
+            }
+            if (stack.isEmpty()) break;
+            n = stack.pop();
+            Interval interval = (Interval) n.getData();
+            // the following intervals of the in-order walk start even later
+            if (interval.start() > hi) break;
+            if (interval.end() >= lo && !n.isTombstone()) {
+                for (int i = 0; i < n.getCount(); i++) result.add(interval);
+            }
+            n = n.getRight();
+        }
+        return result;
+    }
+
+    /**
+     * @param point the queried point
+     * @return all intervals that contain the point, ordered by their start
+     */
+    public List<Interval> stabbing(long point) {
+        return overlapping(point, point);
+    }
+
+    /**
+     * Finds any interval that overlaps [lo, hi] on a single path in O(log n): if the left subtree reaches lo,
+     * it either has an overlapping interval, or no interval of the right subtree can overlap either,
+     * because they all start after the left ones. The biggest ends skip tombstones, so this holds for them too.
+     *
+     * @return an overlapping interval, null if there is none
+     */
+    public Interval anyOverlapping(long lo, long hi) {
+        Node n = root;
+        while (n != null) {
+            Interval interval = (Interval) n.getData();
+            if (!n.isTombstone() && interval.overlaps(lo, hi)) return interval;
+            n = n.getLeft() != null && maxEndOf(n.getLeft()) >= lo ? n.getLeft() : n.getRight();
+        }
+        return null;
+    }
+
+    private static long maxEndOf(Node n) {
+        return (Long) n.getAggregate();
+    }
+}
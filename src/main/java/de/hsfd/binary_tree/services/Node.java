@@ -8,43 +8,129 @@ public class Node {
     }
 
     public void setColor(COLOR color) {
+        if (changeLog != null) changeLog.recolored(this, color);
         this.color = color;
     }
 
     public enum COLOR {RED, BLACK}
 
-    /**
-     * A default value when a node data is not null
-     */
-    public static final int DEFAULT_HEIGHT = 1;
     private Comparable data;
     private Node left;
     private Node right;
     private Node parent;
-    private int height = DEFAULT_HEIGHT;
+    /**
+     * Only used by the {@link AVLTree}: the height of the left subtree minus the height of the right subtree,
+     * which is -1, 0 or 1 between two operations. A byte instead of the height, because the retracing only needs
+     * to know which side is higher.
+     */
+    private byte balanceFactor;
     private COLOR color;
+    /**
+     * Only used by the {@link WAVLTree}: true if the rank of this node is odd.
+     * A rank difference of 1 or 2 can be derived from the parity of the parent and the child.
+     */
+    private boolean rankParity;
+    /**
+     * The number of occurrences of the data, only bigger than 1 for a tree in multiset mode.
+     */
+    private int count = 1;
+    /**
+     * True if the value has been deleted lazily, the node stays in the tree until the next compaction.
+     */
+    private boolean tombstone;
+    /**
+     * Only used with {@link BinaryTree#enableAggregates(Aggregator)}: the cached aggregate of all values
+     * in the subtree of this node.
+     */
+    private Object aggregate;
+    /**
+     * Only set while a {@link ChangeLog} records the tree of this node, see {@link BinaryTree#recordChanges()}.
+     */
+    ChangeLog changeLog;
 
     public Node(Comparable data) {
         this.data = data;
-        if(data == null) this.height = DEFAULT_HEIGHT - 1 ;
     }
 
      Node(Comparable data, COLOR color) {
             this.data = data;
             this.color = color;
-            if(data == null) this.height = DEFAULT_HEIGHT - 1;
     }
 
     public Node getParent() {
         return parent;
     }
 
-    public int getHeight() {
-        return height;
+    public int getBalanceFactor() {
+        return balanceFactor;
+    }
+
+    public void setBalanceFactor(int balanceFactor) {
+        this.balanceFactor = (byte) balanceFactor;
+    }
+
+    public boolean getRankParity() {
+        return rankParity;
+    }
+
+    public void setRankParity(boolean rankParity) {
+        this.rankParity = rankParity;
     }
 
-    public void setHeight(int height) {
-        this.height = height;
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public boolean isTombstone() {
+        return tombstone;
+    }
+
+    public void setTombstone(boolean tombstone) {
+        this.tombstone = tombstone;
+    }
+
+    public Object getAggregate() {
+        return aggregate;
+    }
+
+    public void setAggregate(Object aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    /**
+     * Clears every field for the reuse by a {@link NodePool}, as if the node had just been created. The links are
+     * cleared without touching the linked nodes, so the node must already be removed from its tree.
+     */
+    void reset(Comparable data, COLOR color) {
+        this.data = data;
+        this.left = null;
+        this.right = null;
+        this.parent = null;
+        this.balanceFactor = 0;
+        this.color = color;
+        this.rankParity = false;
+        this.count = 1;
+        this.tombstone = false;
+        this.aggregate = null;
+        this.changeLog = null;
+    }
+
+    /**
+     * Takes over the value of another node, when the other node replaces this node in the tree
+     * (e.g. the smallest node of the right subtree during a deletion).
+     * The structure (links, balance factor, color) stays the same.
+     *
+     * @param other the node whose value moves into this node
+     */
+    void copyValueOf(Node other) {
+        if (changeLog != null) changeLog.valueChanged(this, other.data);
+        this.data = other.data;
+        this.count = other.count;
+        this.tombstone = other.tombstone;
     }
 
     public boolean isLeaf() {
@@ -56,6 +142,7 @@ public class Node {
     }
 
     public void setLeft(Node n) {
+        if (changeLog != null) changeLog.linked(this, true, n);
         checkParentConnection(n);
         // make sure that this.left.parent also null, so that the left children of this
         // does not have the connection to the parent or predecessor.
@@ -68,6 +155,7 @@ public class Node {
     }
 
     public void setRight(Node n) {
+        if (changeLog != null) changeLog.linked(this, false, n);
         checkParentConnection(n);
         // make sure that this.right.parent also null, so that the right children of this
         // does not have the connection to the parent or predecessor.
@@ -93,6 +181,7 @@ public class Node {
     }
 
     public void setData(Comparable data) {
+        if (changeLog != null) changeLog.valueChanged(this, data);
         this.data = data;
     }
 
@@ -126,8 +215,10 @@ public class Node {
     public String toString() {
         return "Node{" +
                 "data=" + data +
-                ", height=" + height +
+                ", balanceFactor=" + balanceFactor +
                 ", color=" + color +
+                (count > 1 ? ", count=" + count : "") +
+                (tombstone ? ", tombstone" : "") +
                 '}';
     }
 }
@@ -0,0 +1,206 @@
+package de.hsfd.binary_tree.services;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded free list of removed {@link Node}s, which are cleared and handed out again by the next insertions of the
+ * tree, see {@link BinaryTree#enableNodePool(NodePool)}. Under a steady churn (e.g. a sliding window, where every
+ * insertion is paired with a deletion), almost no node is allocated anymore, and the garbage collector has less work.
+ * <p>
+ * The pool itself is not thread-safe: it must only be used by one tree, or by trees guarded by the same lock.
+ * {@link NodePool#threadLocal(int)} gives every thread its own free list instead, so one pool can be shared by trees
+ * that are used from many threads, e.g. the shards of a {@link de.hsfd.binary_tree.services.concurrent.ShardedTree}.
+ * A node removed by one thread is then reused by the next insertion of the same thread, and the free list of a thread
+ * is garbage collected together with its nodes when the thread ends, or once the pool is not used anymore (then on
+ * the next {@link ThreadLocal} operations of a long-lived thread, which clear the stale entry).
+ * </p>
+ * Inspired from: the free lists of memory allocators, e.g. Bonwick, The Slab Allocator (1994)
+ */
+@SuppressWarnings("rawtypes")
+public class NodePool {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    /**
+     * Only created by the first release and grown up to the capacity, so that an unused pool costs nothing.
+     */
+    private Node[] free;
+    private int size;
+
+    private long created;
+    private long reused;
+    private long dropped;
+    /**
+     * The counters of the thread-local pool, which this free list of a thread adds to, null for a plain pool.
+     * The free list must not reference the thread-local pool itself, because it is the value of its
+     * {@link ThreadLocal}, which would then never become unreachable.
+     */
+    private final LongAdder sharedCreated;
+    private final LongAdder sharedReused;
+    private final LongAdder sharedDropped;
+
+    public NodePool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the maximal number of free nodes, a removed node beyond it is left to the garbage collector
+     */
+    public NodePool(int capacity) {
+        this(capacity, null, null, null);
+    }
+
+    private NodePool(int capacity, LongAdder created, LongAdder reused, LongAdder dropped) {
+        if (capacity < 0) throw new IllegalArgumentException("The capacity must not be negative, but was " + capacity);
+        this.capacity = capacity;
+        this.sharedCreated = created;
+        this.sharedReused = reused;
+        this.sharedDropped = dropped;
+    }
+
+    /**
+     * Creates a pool, which keeps a separate free list of the given capacity for every thread.
+     */
+    public static NodePool threadLocal(int capacity) {
+        return new ThreadLocalNodePool(capacity);
+    }
+
+    /**
+     * @return a cleared node with the value and the color, recycled if possible
+     */
+    Node acquire(Comparable data, Node.COLOR color) {
+        if (size == 0) {
+            if (sharedCreated == null) created++;
+            else sharedCreated.increment();
+            return new Node(data, color);
+        }
+        Node n = free[--size];
+        free[size] = null;
+        n.reset(data, color);
+        if (sharedReused == null) reused++;
+        else sharedReused.increment();
+        return n;
+    }
+
+    /**
+     * Takes back a node that has been removed from its tree. Its links are cleared without touching the nodes it
+     * links to, so it must not be referenced by the tree anymore.
+     */
+    void release(Node n) {
+        if (size == capacity) {
+            if (sharedDropped == null) dropped++;
+            else sharedDropped.increment();
+            return;
+        }
+        if (free == null) free = new Node[Math.min(capacity, 64)];
+        else if (size == free.length) free = Arrays.copyOf(free, Math.min(capacity, size * 2));
+        // the value is cleared right away, so that the pool does not keep it alive
+        n.reset(null, null);
+        free[size++] = n;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of free nodes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the number of nodes, which have been allocated, because the pool was empty
+     */
+    public long created() {
+        return created;
+    }
+
+    public long reused() {
+        return reused;
+    }
+
+    /**
+     * @return the number of removed nodes, which have not been kept, because the pool was full
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{capacity=" + capacity() + ", size=" + size() + ", created=" + created()
+                + ", reused=" + reused() + ", dropped=" + dropped() + "}";
+    }
+
+    /**
+     * Every thread gets its own {@link NodePool}. The counters are shared by all threads, so they keep the
+     * operations of ended threads, and the size sums up the free lists of the threads that are still alive.
+     */
+    private static final class ThreadLocalNodePool extends NodePool {
+
+        private final LongAdder created = new LongAdder();
+        private final LongAdder reused = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        /**
+         * Only weakly referenced, a free list is only kept alive by the {@link ThreadLocal} of its thread.
+         */
+        private final Set<NodePool> pools = Collections.newSetFromMap(new WeakHashMap<>());
+        private final ThreadLocal<NodePool> local;
+
+        ThreadLocalNodePool(int capacity) {
+            super(capacity);
+            local = ThreadLocal.withInitial(() -> {
+                NodePool pool = new NodePool(capacity, created, reused, dropped);
+                synchronized (pools) {
+                    pools.add(pool);
+                }
+                return pool;
+            });
+        }
+
+        @Override
+        Node acquire(Comparable data, Node.COLOR color) {
+            return local.get().acquire(data, color);
+        }
+
+        @Override
+        void release(Node n) {
+            local.get().release(n);
+        }
+
+        /**
+         * The free lists of the other threads are read without synchronization, so the size is only an estimate
+         * while they are running.
+         */
+        @Override
+        public long size() {
+            long sum = 0;
+            synchronized (pools) {
+                for (NodePool pool : pools) sum += pool.size();
+            }
+            return sum;
+        }
+
+        @Override
+        public long created() {
+            return created.sum();
+        }
+
+        @Override
+        public long reused() {
+            return reused.sum();
+        }
+
+        @Override
+        public long dropped() {
+            return dropped.sum();
+        }
+    }
+}
@@ -9,11 +9,36 @@ import static de.hsfd.binary_tree.services.Node.COLOR.*;
 @SuppressWarnings("rawtypes")
 public class RBTree extends BinaryTree {
 
+    public RBTree() {
+        super();
+    }
+
+    /**
+     * @param multiset whether a duplicate should be counted in the existing node instead of being rejected
+     */
+    public RBTree(boolean multiset) {
+        super(multiset);
+    }
+
+    /**
+     * @param multiset   whether a duplicate should be counted in the existing node instead of being rejected
+     * @param aggregator the aggregator the subclass needs for its own queries, e.g. the biggest end of the
+     *                   {@link IntervalTree}
+     */
+    protected RBTree(boolean multiset, Aggregator aggregator) {
+        super(multiset, aggregator);
+    }
+
     @Override
-    public void insert(Comparable data) {
-        Node newNode = new Node(data, RED);
-        insertNode(newNode);
+    public boolean add(Comparable data) {
+        Node newNode = createNode(data, RED);
+        Node node = insertNode(newNode);
+        if(node != newNode) {
+            recycle(newNode);
+            return addDuplicate(node);
+        }
         RBInsertFixup(newNode);
+        return true;
     }
 
     @Override
@@ -23,34 +48,43 @@ public class RBTree extends BinaryTree {
             // target is the root and only one
             root = null;
         } else {
-            Node x, nullNode = new Node(null, BLACK);
+            // the placeholder for a missing x, only created if it is needed
+            Node x, nullNode = null;
             COLOR targetOriginalColor = target.getColor();
             if(target.getRight() != null && target.getLeft() != null) {
                 // Case 2 if the target has two children. Based on Lecture AlgoDS 24/25 HS Fulda
                 // Then take the inorder approach to find the smallest children of the right target's children
+                // The target keeps its color, the node that is physically removed is the smallest one (y-original-color)
+                Node smallest = target.getRight();
+                while (smallest.getLeft() != null) smallest = smallest.getLeft();
+                targetOriginalColor = smallest.getColor();
                 parentTarget = replaceWithTheSmallestOfRightChildren(target);
 
                 if (target == parentTarget) {
                     // target.getRight() does not have other child.
                     // y.p == z, based on Delete Method the book Introduction to Algorithm
                     if(target.getRight() == null){
+                        nullNode = createNode(null, BLACK);
                         target.setRight(nullNode);
                         x = nullNode;
                     } else x = target.getRight();
                 } else {
                     // the smallest value, children or grandchildren of target.getRight() exist
                     // y.p != z, based on Delete Method the book Introduction to Algorithm
-                    if(parentTarget.getRight() == null){
-                        parentTarget.setRight(nullNode);
+                    // the smallest node was the left child of its parent, so x took its place on the left
+                    if(parentTarget.getLeft() == null){
+                        nullNode = createNode(null, BLACK);
+                        parentTarget.setLeft(nullNode);
                         x = nullNode;
-                    } else x = parentTarget.getRight();
+                    } else x = parentTarget.getLeft();
                 }
             } else {
                 x = deleteTargetWithOneChildOrNone(parentTarget, target, positionOfTarget);
                 if(x.getData() == null) nullNode = x;
             }
 
-            if(targetOriginalColor == BLACK && x.getData() != null) {
+            if(targetOriginalColor == BLACK) {
+                // also for the nullNode: a removed black leaf leaves a missing black node on this path
                 this.newRBDeleteFixup(x);
             }
             return nullNode;
@@ -78,10 +112,10 @@ public class RBTree extends BinaryTree {
             Node case1 = isParentLeftChildOfGrandParent ? grandParent.getRight() : grandParent.getLeft();
             Node case2 = isParentLeftChildOfGrandParent ? parent.getRight() : parent.getLeft();
 
-            Node uncleY = case1 == null ? new Node(null, BLACK) : case1;
+            Node uncleY = case1;
 
-            // Reparation Logic
-            if(uncleY.getColor() == RED) {
+            // Reparation Logic, a missing uncle is black
+            if(uncleY != null && uncleY.getColor() == RED) {
                 // Case 1 change the color of parent and uncle_y to black and grandparent to red
                 // z is now grandparent, for the next loop we will check if it violates exists
                 // Bottom up approach
@@ -132,9 +166,7 @@ public class RBTree extends BinaryTree {
             boolean isLeftChildrenOfParent = (x == x.getParent().getLeft());
             Node w = isLeftChildrenOfParent ? x.getParent().getRight() : x.getParent().getLeft();
 
-            w = w == null ? new Node(null, BLACK) : w;
-
-            if(w.getColor() == RED) {
+            if(!isBlack(w)) {
                 // case 1
                 w.setColor(BLACK);
                 x.getParent().setColor(RED);
@@ -143,17 +175,12 @@ public class RBTree extends BinaryTree {
                 w = isLeftChildrenOfParent ? x.getParent().getRight() : x.getParent().getLeft();
             }
 
-            w = w == null ? new Node(null, BLACK) : w;
-            Node wLeftChild = w.getLeft() == null ? new Node(null, BLACK) : w.getLeft();
-            Node wRightChild = w.getRight() == null ? new Node(null, BLACK) : w.getRight();
-
-            if(wLeftChild.getColor() == BLACK && wRightChild.getColor() == BLACK) {
-                // case 2
-                w.setColor(RED);
+            if(w == null || isBlack(w.getLeft()) && isBlack(w.getRight())) {
+                // case 2, a missing sibling counts as a black leaf with black children
+                if(w != null) w.setColor(RED);
                 x = x.getParent();
             } else {
-                COLOR wChildrenColor = isLeftChildrenOfParent ? wRightChild.getColor() : wLeftChild.getColor();
-                if(wChildrenColor == BLACK) {
+                if(isBlack(isLeftChildrenOfParent ? w.getRight() : w.getLeft())) {
                     // case 3
                     // the children of x in the if statement must not be null,
                     // otherwise something totally wrong!
@@ -167,8 +194,8 @@ public class RBTree extends BinaryTree {
                     if (isLeftChildrenOfParent) rightRotate(w);
                     else leftRotate(w);
 
+                    // the new sibling is the former red child of w, which cannot be missing
                     w = isLeftChildrenOfParent ?  x.getParent().getRight() : x.getParent().getLeft();
-                    w = w == null ? new Node(null, BLACK) : w;
                 }
                 // case 4
                 w.setColor(x.getParent().getColor());
@@ -183,6 +210,13 @@ public class RBTree extends BinaryTree {
         x.setColor(BLACK);
     }
 
+    /**
+     * @return true for a black node and for a missing child, which counts as a black leaf
+     */
+    private static boolean isBlack(Node n) {
+        return n == null || n.getColor() == BLACK;
+    }
+
     /**
      * Repairs the Red-Black Tree properties after a node deletion, ensuring the tree maintains its color and
      * structural properties. This method resolves color violations and structure imbalances that may arise
@@ -250,5 +284,67 @@ public class RBTree extends BinaryTree {
         }
     }
 
+    /**
+     * Joins both trees with the black-height-based join: the middle node is attached in red on the right spine of
+     * the left tree (or the left spine of the right tree) at the first black node with the black height of the other
+     * tree. A red-red violation is then repaired with {@link RBTree#RBInsertFixup(Node)}.
+     * Both roots are colored black first, which is always allowed for the root of a red-black tree.
+     * The black heights are read by walking both trees down to a leaf in O(log n), so a split, which joins once per
+     * node of its path, takes O(log^2 n).
+     * Inspired from: Blelloch, Ferizovic and Sun, Just Join for Parallel Ordered Sets (2016)
+     */
+    @Override
+    protected Node join(Node left, Node middle, Node right) {
+        if (left != null) left.setColor(BLACK);
+        if (right != null) right.setColor(BLACK);
+        int leftBlackHeight = blackHeight(left);
+        int rightBlackHeight = blackHeight(right);
+        if (leftBlackHeight == rightBlackHeight) {
+            middle.setColor(BLACK);
+            middle.setLeft(left);
+            middle.setRight(right);
+            return middle;
+        }
 
+        boolean isLeftHigher = leftBlackHeight > rightBlackHeight;
+        int otherBlackHeight = Math.min(leftBlackHeight, rightBlackHeight);
+        int blackHeight = Math.max(leftBlackHeight, rightBlackHeight);
+        Node parent = null;
+        Node c = isLeftHigher ? left : right;
+        while (c != null && !(c.getColor() == BLACK && blackHeight == otherBlackHeight)) {
+            if (c.getColor() == BLACK) blackHeight--;
+            parent = c;
+            c = isLeftHigher ? c.getRight() : c.getLeft();
+        }
+        middle.setColor(RED);
+        if (isLeftHigher) {
+            middle.setLeft(c);
+            middle.setRight(right);
+            parent.setRight(middle);
+        } else {
+            middle.setLeft(left);
+            middle.setRight(c);
+            parent.setLeft(middle);
+        }
+
+        // the rotations update the root, so the higher tree is repaired as if it were the whole tree
+        Node savedRoot = root;
+        root = isLeftHigher ? left : right;
+        RBInsertFixup(middle);
+        Node joined = root;
+        root = savedRoot;
+        return joined;
+    }
+
+    /**
+     * @param n the root of a subtree
+     * @return the number of black nodes on every path from n to a leaf, including n
+     */
+    private static int blackHeight(Node n) {
+        int blackHeight = 0;
+        for (; n != null; n = n.getLeft()) {
+            if (n.getColor() == BLACK) blackHeight++;
+        }
+        return blackHeight;
+    }
 }
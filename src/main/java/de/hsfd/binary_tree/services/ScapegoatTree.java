@@ -0,0 +1,210 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.exceptions.TreeException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * A {@link BSTree} that stays balanced without any balance information in the nodes and without rotations.
+ * <p>
+ * An insertion deeper than log_(1/alpha)(n) walks back up to the first ancestor whose child on the path holds more
+ * than alpha of its nodes (the scapegoat), and only the subtree of the scapegoat is rebuilt into a perfectly
+ * balanced tree. After enough deletions, that the tree has fewer than alpha times the nodes of its biggest size
+ * since the last full rebuild, the whole tree is rebuilt. Both keep the height in O(log n), and the rebuilds cost
+ * O(log n) amortized per operation.
+ * </p>
+ * Inspired from: Galperin and Rivest, Scapegoat Trees (1993)
+ */
+@SuppressWarnings("rawtypes")
+public class ScapegoatTree extends BSTree {
+
+    public static final double DEFAULT_ALPHA = 2.0 / 3;
+
+    private final double alpha;
+    /**
+     * The base of the logarithm of the depth bound, precomputed as ln(1 / alpha).
+     */
+    private final double logOfInverseAlpha;
+    /**
+     * The biggest number of nodes since the last rebuild of the whole tree.
+     */
+    private int maxNodes = 0;
+
+    public ScapegoatTree() {
+        this(DEFAULT_ALPHA);
+    }
+
+    /**
+     * @param alpha the weight balance between 0.5 (strict, many rebuilds) and 1 (loose, deep trees)
+     */
+    public ScapegoatTree(double alpha) {
+        if (!(alpha > 0.5 && alpha < 1)) throw new IllegalArgumentException("alpha must be in (0.5, 1), but was " + alpha);
+        this.alpha = alpha;
+        this.logOfInverseAlpha = Math.log(1 / alpha);
+    }
+
+    @Override
+    public boolean add(Comparable x) {
+        Node newNode = createNode(x, null);
+        Node node = insertNode(newNode);
+        if (node != newNode) {
+            recycle(newNode);
+            return addDuplicate(node);
+        }
+
+        int nodes = nodeCount();
+        maxNodes = Math.max(maxNodes, nodes);
+        int depth = 0;
+        for (Node n = newNode; n.getParent() != null; n = n.getParent()) depth++;
+        if (depth > maxDepth(nodes)) rebuildScapegoatOf(newNode);
+        return true;
+    }
+
+    /**
+     * Deletes the target like the {@link BSTree}, but a leaf is detached at once instead of being replaced with
+     * a null node, so that the whole tree can be rebuilt right away if it has shrunk too much.
+     */
+    @Override
+    protected Node deleteTarget(Node parentTarget, Node target, CHILD positionOfTarget) throws TreeException {
+        if (target.getLeft() != null && target.getRight() != null) {
+            replaceWithTheSmallestOfRightChildren(target);
+        } else {
+            Node child = target.getLeft() != null ? target.getLeft() : target.getRight();
+            if (parentTarget == null) {
+                // the child becomes the root and must not keep the old root as its parent
+                target.setLeft(null);
+                target.setRight(null);
+                root = child;
+            } else if (positionOfTarget == CHILD.leftChildOfParent) {
+                parentTarget.setLeft(child);
+            } else {
+                parentTarget.setRight(child);
+            }
+        }
+
+        // the counters are updated by the caller after the deletion, so the target is still counted
+        if (nodeCount() - 1 < alpha * maxNodes) rebuildAll();
+        return null;
+    }
+
+    /**
+     * Cuts the range out with the split and join of {@link BinaryTree}, which do not balance, and rebuilds the whole
+     * tree afterward, because the scapegoat tree does not know the heights of the joined parts.
+     */
+    @Override
+    public int deleteRange(Comparable lo, Comparable hi) {
+        int deleted = super.deleteRange(lo, hi);
+        if (deleted > 0) rebuildAll();
+        return deleted;
+    }
+
+    /**
+     * The counters are only updated after all tombstones are removed, so the shrinking is checked again at the end.
+     */
+    @Override
+    public int compact() {
+        int removed = super.compact();
+        if (nodeCount() < alpha * maxNodes) rebuildAll();
+        return removed;
+    }
+
+    private int nodeCount() {
+        return size + tombstones;
+    }
+
+    /**
+     * @return floor(log_(1/alpha)(nodes)), the maximal depth of a node (the root has depth 0)
+     */
+    private int maxDepth(int nodes) {
+        return (int) Math.floor(Math.log(nodes) / logOfInverseAlpha);
+    }
+
+    /**
+     * Walks up from a too deep node, until the child on the path holds more than alpha of the nodes of its parent,
+     * and rebuilds the subtree of that parent. The sizes of the subtrees are only counted on the way up.
+     */
+    private void rebuildScapegoatOf(Node deepNode) {
+        Node child = deepNode;
+        int childSize = 1;
+        for (Node parent = child.getParent(); parent != null; child = parent, parent = parent.getParent()) {
+            Node sibling = parent.getLeft() == child ? parent.getRight() : parent.getLeft();
+            int parentSize = childSize + 1 + sizeOf(sibling);
+            if (childSize > alpha * parentSize) {
+                rebuild(parent, parentSize);
+                return;
+            }
+            childSize = parentSize;
+        }
+    }
+
+    private void rebuildAll() {
+        int nodes = sizeOf(root);
+        if (root != null) rebuild(root, nodes);
+        maxNodes = nodes;
+    }
+
+    /**
+     * Rebuilds the subtree into a perfectly balanced tree from its nodes in order. The nodes are reused,
+     * only their links change.
+     *
+     * @param subtree the root of the subtree
+     * @param count   the number of nodes of the subtree
+     */
+    private void rebuild(Node subtree, int count) {
+        Node parent = subtree.getParent();
+        boolean isLeftChild = parent != null && parent.getLeft() == subtree;
+
+        Node[] nodes = new Node[count];
+        int i = 0;
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        Node n = subtree;
+        while (n != null || !stack.isEmpty()) {
+            while (n != null) {
+                stack.push(n);
+                n = n.getLeft();
+            }
+            n = stack.pop();
+            nodes[i++] = n;
+            n = n.getRight();
+        }
+        // all links are cut first, because setting a child also clears the parent of the replaced child
+        if (parent != null) {
+            if (isLeftChild) parent.setLeft(null);
+            else parent.setRight(null);
+        }
+        for (Node node : nodes) {
+            node.setLeft(null);
+            node.setRight(null);
+        }
+
+        Node balanced = build(nodes, 0, count - 1);
+        if (parent == null) root = balanced;
+        else if (isLeftChild) parent.setLeft(balanced);
+        else parent.setRight(balanced);
+    }
+
+    private Node build(Node[] nodes, int low, int high) {
+        if (low > high) return null;
+        int middle = (low + high) >>> 1;
+        Node n = nodes[middle];
+        n.setLeft(build(nodes, low, middle - 1));
+        n.setRight(build(nodes, middle + 1, high));
+        // the values of the subtree stay the same, but its nodes are linked differently
+        updateAggregate(n);
+        return n;
+    }
+
+    private static int sizeOf(Node subtree) {
+        int count = 0;
+        ArrayList<Node> stack = new ArrayList<>();
+        if (subtree != null) stack.add(subtree);
+        while (!stack.isEmpty()) {
+            Node n = stack.removeLast();
+            count++;
+            if (n.getLeft() != null) stack.add(n.getLeft());
+            if (n.getRight() != null) stack.add(n.getRight());
+        }
+        return count;
+    }
+}
@@ -0,0 +1,69 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.exceptions.TreeException;
+
+import java.util.List;
+
+/**
+ * The contract, which is shared by all search trees of this project, so that callers can swap
+ * the implementation (e.g. {@link RBTree} or {@link BPlusTree}) without any other change.
+ * <p>
+ * The hot path is {@link SearchTree#add(Comparable)}, {@link SearchTree#remove(Comparable)} and
+ * {@link SearchTree#contains(Comparable)}, which report the outcome with the return value and never construct
+ * an exception. The throwing methods {@link SearchTree#insert(Comparable)} and {@link SearchTree#delete(Comparable)}
+ * are a thin layer on top.
+ * </p>
+ */
+@SuppressWarnings("rawtypes")
+public interface SearchTree {
+
+    /**
+     * @param data the value to be inserted
+     * @return true if the value has been inserted, false if it is already in the tree
+     */
+    boolean add(Comparable data);
+
+    /**
+     * @param x the value to be deleted
+     * @return true if the value has been deleted, false if it is not in the tree
+     */
+    boolean remove(Comparable x);
+
+    /**
+     * @param x the target value
+     * @return the same value if found, otherwise null
+     */
+    Comparable lookup(Comparable x);
+
+    /**
+     * @return the number of values in the tree
+     */
+    int size();
+
+    /**
+     * @param lo the lower bound
+     * @param hi the upper bound
+     * @return the values between lo and hi (both inclusive) in ascending order, empty if lo is greater than hi
+     */
+    List<Comparable> range(Comparable lo, Comparable hi);
+
+    default boolean contains(Comparable x) {
+        return lookup(x) != null;
+    }
+
+    /**
+     * @param data the value to be inserted
+     * @throws TreeException if the value is already in the tree
+     */
+    default void insert(Comparable data) {
+        if (!add(data)) throw new TreeException("The value is already in the tree. No Parent will be returned");
+    }
+
+    /**
+     * @param x the value to be deleted
+     * @throws TreeException if the value to delete is not found
+     */
+    default void delete(Comparable x) {
+        if (!remove(x)) throw new TreeException("The value " + x + " could not be found in the tree.");
+    }
+}
@@ -0,0 +1,125 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.exceptions.TreeException;
+
+/**
+ * A self-adjusting binary search tree. Every accessed node is moved to the root with rotations,
+ * so that frequently used values stay close to the root. All operations are O(log n) amortized,
+ * and a skewed access distribution is served much faster than the uniform O(log n) of AVL or RB trees.
+ * <p>
+ * The splay operation is the bottom-up variant with the existing {@link BinaryTree#leftRotate(Node)} and
+ * {@link BinaryTree#rightRotate(Node)}, because the nodes in this project already have parent links.
+ * Therefore, the access path is not walked a second time to find the ancestors.
+ * </p>
+ * Inspired from: Sleator and Tarjan, Self-Adjusting Binary Search Trees (1985)
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class SplayTree extends BinaryTree {
+
+    /**
+     * Inserts the value and splays its node to the root. For a duplicate, the existing node is splayed instead.
+     */
+    @Override
+    public boolean add(Comparable data) {
+        Node newNode = createNode(data, null);
+        Node node = insertNode(newNode);
+        splay(node);
+        if (node == newNode) return true;
+        recycle(newNode);
+        return addDuplicate(node);
+    }
+
+    /**
+     * Same contract as {@link BinaryTree#lookup(Comparable)}, but the found node (or the last node of the
+     * search path, if x is not in the tree) is splayed to the root. A tombstone is splayed, but not returned.
+     *
+     * @param x the target value
+     * @return the same value if found, otherwise null
+     */
+    @Override
+    public Comparable lookup(Comparable x) {
+        // a miss rejected by the Bloom filter does not splay, the tree keeps its shape
+        if (isDefinitelyAbsent(x)) return null;
+        Node n = root;
+        Node last = null;
+        while (n != null) {
+            int compare = x.compareTo(n.getData());
+            if (compare == 0) {
+                splay(n);
+                if (n.isTombstone()) recordBloomFalsePositive();
+                return n.isTombstone() ? null : n.getData();
+            }
+            last = n;
+            n = compare < 0 ? n.getLeft() : n.getRight();
+        }
+        if (last != null) splay(last);
+        recordBloomFalsePositive();
+        return null;
+    }
+
+    /**
+     * Splays the target to the root, then joins both subtrees:
+     * the biggest node of the left subtree is splayed to the top of the left subtree
+     * (so it has no right child) and takes the right subtree as its right child.
+     */
+    @Override
+    protected Node deleteTarget(Node parentTarget, Node target, CHILD positionOfTarget) throws TreeException {
+        splay(target);
+        Node left = target.getLeft();
+        Node right = target.getRight();
+        target.setLeft(null);
+        target.setRight(null);
+
+        if (left == null) {
+            root = right;
+        } else {
+            root = left;
+            Node max = left;
+            while (max.getRight() != null) max = max.getRight();
+            splay(max);
+            max.setRight(right);
+        }
+        return null;
+    }
+
+    /**
+     * Moves x to the root with zig (x is a child of the root), zig-zig (x and its parent are both left or
+     * both right children) and zig-zag steps (otherwise).
+     *
+     * @param x the accessed node
+     */
+    protected void splay(Node x) {
+        while (x.getParent() != null) {
+            Node parent = x.getParent();
+            Node grandParent = parent.getParent();
+            boolean isLeftChild = parent.getLeft() == x;
+
+            if (grandParent == null) {
+                // zig
+                if (isLeftChild) rightRotate(parent);
+                else leftRotate(parent);
+            } else {
+                boolean isParentLeftChild = grandParent.getLeft() == parent;
+                if (isLeftChild == isParentLeftChild) {
+                    // zig-zig: rotate the grandparent first, then the parent
+                    if (isLeftChild) {
+                        rightRotate(grandParent);
+                        rightRotate(parent);
+                    } else {
+                        leftRotate(grandParent);
+                        leftRotate(parent);
+                    }
+                } else {
+                    // zig-zag: double rotation, same as the inner cases of the AVL tree
+                    if (isLeftChild) {
+                        rightRotate(parent);
+                        leftRotate(grandParent);
+                    } else {
+                        leftRotate(parent);
+                        rightRotate(grandParent);
+                    }
+                }
+            }
+        }
+    }
+}
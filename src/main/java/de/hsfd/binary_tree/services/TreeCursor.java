@@ -0,0 +1,92 @@
+package de.hsfd.binary_tree.services;
+
+/**
+ * A finger for clustered lookups, created by {@link BinaryTree#cursor()}.
+ * <p>
+ * The cursor remembers the last visited node. A new search climbs from there via
+ * {@link Node#getParent()} only until an ancestor brackets the new value, and then descends as usual.
+ * The search costs the climb to the lowest common ancestor of the finger and the new value plus the descent
+ * from there, so it saves the most when consecutive values lie in a small subtree. Without level links, two
+ * neighbouring values can still be separated by the root, then the search costs as much as one from the root.
+ * </p>
+ * The cursor does not change the tree. It stays valid after insertions and deletions,
+ * because the climb only relies on the current links of the tree and not on the remembered value.
+ * <p>Idea inspired from: Guibas et al., A new representation for linear lists (finger search trees)</p>
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public final class TreeCursor {
+
+    private final BinaryTree tree;
+    private Node finger;
+
+    TreeCursor(BinaryTree tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Same contract as {@link BinaryTree#lookup(Comparable)}, but starts from the last visited node.
+     * Afterward, the finger points to the found node or to the last node on the search path.
+     *
+     * @param x the target value
+     * @return the same value if found, otherwise null
+     */
+    public Comparable lookup(Comparable x) {
+        Node n = startOf(x);
+        Node last = n;
+        while (n != null) {
+            int compare = x.compareTo(n.getData());
+            if (compare == 0) {
+                finger = n;
+                return n.isTombstone() ? null : n.getData();
+            }
+            last = n;
+            n = compare < 0 ? n.getLeft() : n.getRight();
+        }
+        finger = last;
+        return null;
+    }
+
+    /**
+     * Climbs up from the finger until the subtree of the current node contains the range where x belongs.
+     * <p>
+     * If x is bigger than the current node and the current node is a right child, the parent is even smaller,
+     * so the climb continues. If the current node is a left child, the parent is the upper bound of the subtree:
+     * if x is smaller than the parent, the search can descend from the current node. The other direction is symmetric.
+     * </p>
+     *
+     * @param x the target value
+     * @return the node from which the descent starts
+     */
+    private Node startOf(Comparable x) {
+        Node n = finger;
+        if (n == null || n.getData() == null || isDetached(n)) return tree.getRoot();
+
+        int compare = x.compareTo(n.getData());
+        if (compare == 0) return n;
+
+        while (n.getParent() != null) {
+            Node parent = n.getParent();
+            boolean isLeftChild = parent.getLeft() == n;
+            if (compare > 0 == isLeftChild) {
+                // the parent is the bound on the side of x
+                int compareParent = x.compareTo(parent.getData());
+                if (compareParent == 0) return parent;
+                if (compare > 0 ? compareParent < 0 : compareParent > 0) return n;
+            }
+            n = parent;
+        }
+        // the finger was in a subtree that is no longer connected to the tree
+        return n == tree.getRoot() ? n : tree.getRoot();
+    }
+
+    private boolean isDetached(Node n) {
+        return n.getParent() == null && n != tree.getRoot();
+    }
+
+    /**
+     * @return the last visited node, null if the cursor has not been used yet
+     */
+    public Node getFinger() {
+        return finger;
+    }
+}
@@ -0,0 +1,129 @@
+package de.hsfd.binary_tree.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * An immutable structural copy of a {@link BinaryTree}: the values, the colors and the children of all nodes in
+ * flat arrays, indexed in pre-order. Taking it is one walk over the nodes without creating any node, so that a tree
+ * guarded by a lock is only blocked for the copy, and the slow formatting and writing happens later on another
+ * thread, see {@link BinaryTree#exportDOTAsync(String)}.
+ * <p>
+ * The values themselves are not copied, so they must not be changed afterward, which holds for the values
+ * of a search tree anyway.
+ * </p>
+ */
+@SuppressWarnings("rawtypes")
+public final class TreeSnapshot {
+
+    private static final int NONE = -1;
+
+    private final Comparable[] values;
+    /**
+     * 0 for no color, otherwise the ordinal of the color plus 1.
+     */
+    private final byte[] colors;
+    private final int[] left;
+    private final int[] right;
+
+    private TreeSnapshot(Comparable[] values, byte[] colors, int[] left, int[] right) {
+        this.values = values;
+        this.colors = colors;
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * @param root     the root of the tree, possibly null
+     * @param capacity the expected number of nodes, the arrays grow if it is too small
+     */
+    static TreeSnapshot of(Node root, int capacity) {
+        capacity = Math.max(capacity, 16);
+        Comparable[] values = new Comparable[capacity];
+        byte[] colors = new byte[capacity];
+        int[] left = new int[capacity];
+        int[] right = new int[capacity];
+        int count = 0;
+
+        // every entry of the stack remembers where its index has to be stored: 2 * parent for the left child,
+        // 2 * parent + 1 for the right child
+        ArrayList<Node> stack = new ArrayList<>();
+        int[] slots = new int[64];
+        if (root != null) {
+            stack.add(root);
+            slots[0] = NONE;
+        }
+        while (!stack.isEmpty()) {
+            int slot = slots[stack.size() - 1];
+            Node n = stack.removeLast();
+            if (count == values.length) {
+                int grown = count * 2;
+                values = Arrays.copyOf(values, grown);
+                colors = Arrays.copyOf(colors, grown);
+                left = Arrays.copyOf(left, grown);
+                right = Arrays.copyOf(right, grown);
+            }
+            int index = count++;
+            values[index] = n.getData();
+            colors[index] = (byte) (n.getColor() == null ? 0 : n.getColor().ordinal() + 1);
+            left[index] = right[index] = NONE;
+            if (slot != NONE) {
+                if ((slot & 1) == 0) left[slot >>> 1] = index;
+                else right[slot >>> 1] = index;
+            }
+
+            if (stack.size() + 2 > slots.length) slots = Arrays.copyOf(slots, slots.length * 2);
+            // the left child is pushed last, so that it is copied first (pre-order)
+            if (n.getRight() != null) {
+                slots[stack.size()] = 2 * index + 1;
+                stack.add(n.getRight());
+            }
+            if (n.getLeft() != null) {
+                slots[stack.size()] = 2 * index;
+                stack.add(n.getLeft());
+            }
+        }
+        return new TreeSnapshot(Arrays.copyOf(values, count), Arrays.copyOf(colors, count),
+                Arrays.copyOf(left, count), Arrays.copyOf(right, count));
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Rebuilds the tree from detached copies of its nodes with the values, the colors and the links.
+     *
+     * @return the root of the copy, null for an empty tree
+     */
+    public Node render() {
+        if (values.length == 0) return null;
+        Node[] nodes = new Node[values.length];
+        // the children have bigger indices than their parent, so they are created backward
+        for (int i = values.length - 1; i >= 0; i--) {
+            Node.COLOR color = colors[i] == 0 ? null : Node.COLOR.values()[colors[i] - 1];
+            nodes[i] = new Node(values[i], color);
+            if (left[i] != NONE) nodes[i].setLeft(nodes[left[i]]);
+            if (right[i] != NONE) nodes[i].setRight(nodes[right[i]]);
+        }
+        return nodes[0];
+    }
+
+    /**
+     * @return the snapshot in the DOT format, the same as {@link BinaryTree#toDOT()} at the time of the snapshot
+     */
+    public String toDOT() {
+        return BinaryTree.toDOT(render());
+    }
+
+    /**
+     * Writes the snapshot as a DOT file, like {@link BinaryTree#exportDOT(String)} at the time of the snapshot.
+     */
+    public void exportDOT(String filename) throws IOException {
+        BinaryTree.exportDOT(render(), filename);
+    }
+}
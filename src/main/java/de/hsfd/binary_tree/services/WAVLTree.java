@@ -0,0 +1,210 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.exceptions.TreeException;
+
+/**
+ * A weak AVL tree. Every node has a rank, a leaf has the rank 0 and a missing node the rank -1.
+ * The rank difference between a parent and its child is always 1 or 2 (a "1-child" or a "2-child"),
+ * and a leaf must not be a 2,2 node.
+ * <p>
+ * Without deletions, the tree has exactly the shape of an AVL tree. With deletions, the height stays
+ * below 2 * log2(n), which is the bound of the red-black tree. Insertion and deletion need at most
+ * two rotations (O(1)), and the promotions or demotions are O(1) amortized.
+ * </p>
+ * <p>
+ * Instead of the full rank, only its parity is stored in {@link Node#getRankParity()}.
+ * In a valid tree a rank difference is 1 or 2, so equal parities mean 2 and different parities mean 1.
+ * During the rebalancing, a rank difference can only become 0 (after an insertion) or 3 (after a deletion),
+ * which can also be told apart by the parity, because the possible values are known in each case.
+ * </p>
+ * Inspired from: Haeupler, Sen and Tarjan, Rank-Balanced Trees (2015)
+ */
+@SuppressWarnings("rawtypes")
+public class WAVLTree extends BinaryTree {
+
+    @Override
+    public boolean add(Comparable data) {
+        Node newNode = createNode(data, null);
+        Node node = insertNode(newNode);
+        if (node != newNode) {
+            recycle(newNode);
+            return addDuplicate(node);
+        }
+        balanceAfterInsert(newNode);
+        return true;
+    }
+
+    @Override
+    protected Node deleteTarget(Node parentTarget, Node target, CHILD positionOfTarget) throws TreeException {
+        Node parent;
+        Node replacement;
+        boolean isReplacementLeftChild;
+        if (target.getLeft() != null && target.getRight() != null) {
+            // Case 2 from the Lecture AlgoDS 24/25 HS Fulda: the smallest node of the right subtree is removed instead.
+            // It was the left child of its parent, or the right child of the target itself.
+            parent = replaceWithTheSmallestOfRightChildren(target);
+            isReplacementLeftChild = parent != target;
+            replacement = isReplacementLeftChild ? parent.getLeft() : parent.getRight();
+        } else {
+            // Case 0 and 1 from the Lecture, without the nullNode: a missing node simply has the rank -1
+            replacement = target.getLeft() != null ? target.getLeft() : target.getRight();
+            if (parentTarget == null) {
+                if (replacement == target.getLeft()) target.setLeft(null);
+                else target.setRight(null);
+                root = replacement;
+                return null;
+            }
+            parent = parentTarget;
+            isReplacementLeftChild = positionOfTarget == CHILD.leftChildOfParent;
+            if (isReplacementLeftChild) parent.setLeft(replacement);
+            else parent.setRight(replacement);
+        }
+        balanceAfterDelete(parent, replacement, isReplacementLeftChild);
+        return null;
+    }
+
+    /**
+     * @return the rank parity of n, a missing node has the rank -1 and is therefore odd
+     */
+    private static boolean parity(Node n) {
+        return n == null || n.getRankParity();
+    }
+
+    /**
+     * Promotes or demotes the node by one rank, both flip the parity.
+     */
+    private static void changeRank(Node n) {
+        n.setRankParity(!n.getRankParity());
+    }
+
+    /**
+     * Bottom-up rebalancing after the insertion of the leaf x (rank 0).
+     * <p>
+     * While x is a 0-child: if its sibling is a 1-child, the parent is promoted and the problem moves up.
+     * Otherwise, the parent is a 0,2 node and one single or double rotation finishes the rebalancing.
+     * </p>
+     *
+     * @param x the inserted node
+     */
+    private void balanceAfterInsert(Node x) {
+        Node parent = x.getParent();
+        // x was promoted (or is new), so the rank difference is 0 or 1: equal parity means 0
+        while (parent != null && parity(parent) == parity(x)) {
+            boolean isLeftChild = parent.getLeft() == x;
+            Node sibling = isLeftChild ? parent.getRight() : parent.getLeft();
+
+            if (parity(parent) != parity(sibling)) {
+                // 0,1 node: promote the parent
+                changeRank(parent);
+                x = parent;
+                parent = x.getParent();
+            } else {
+                // 0,2 node: rotate
+                Node inner = isLeftChild ? x.getRight() : x.getLeft();
+                if (parity(x) == parity(inner)) {
+                    // the inner child of x is a 2-child: single rotation, the parent becomes a 1,1 node
+                    if (isLeftChild) rightRotate(parent);
+                    else leftRotate(parent);
+                    changeRank(parent);
+                } else {
+                    // the inner child of x is a 1-child: double rotation, inner becomes the top of the subtree
+                    if (isLeftChild) {
+                        leftRotate(x);
+                        rightRotate(parent);
+                    } else {
+                        rightRotate(x);
+                        leftRotate(parent);
+                    }
+                    changeRank(inner);
+                    changeRank(x);
+                    changeRank(parent);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Bottom-up rebalancing after a node has been removed below the parent.
+     * <p>
+     * If the parent became a 2,2 leaf, it is demoted first. Then, while x is a 3-child:
+     * if its sibling is a 2-child, the parent is demoted. If the sibling is a 1-child and a 2,2 node,
+     * both are demoted. Otherwise, one single or double rotation finishes the rebalancing.
+     * </p>
+     *
+     * @param parent        the parent of the removed node
+     * @param x             the node that took the place of the removed node, possibly null
+     * @param isLeftChild   whether x is the left child of the parent
+     */
+    private void balanceAfterDelete(Node parent, Node x, boolean isLeftChild) {
+        if (parent.isLeaf()) {
+            // the removed node was a leaf, so the parent has the rank 1 and is now a 2,2 leaf
+            changeRank(parent);
+            x = parent;
+            parent = x.getParent();
+            isLeftChild = parent != null && parent.getLeft() == x;
+        }
+
+        // x was demoted (or replaced a removed node), so the rank difference is 2 or 3: different parity means 3
+        while (parent != null && parity(parent) != parity(x)) {
+            Node sibling = isLeftChild ? parent.getRight() : parent.getLeft();
+            if (parity(parent) == parity(sibling)) {
+                // 3,2 node: demote the parent
+                changeRank(parent);
+            } else if (parity(sibling) == parity(sibling.getLeft()) && parity(sibling) == parity(sibling.getRight())) {
+                // 3,1 node with a 2,2 sibling: demote both
+                changeRank(parent);
+                changeRank(sibling);
+            } else {
+                rotateAfterDelete(parent, sibling, isLeftChild);
+                return;
+            }
+            x = parent;
+            parent = x.getParent();
+            isLeftChild = parent != null && parent.getLeft() == x;
+        }
+    }
+
+    /**
+     * The parent is a 3,1 node and the sibling is not a 2,2 node.
+     *
+     * @param parent      the 3,1 node
+     * @param sibling     the 1-child of the parent
+     * @param isLeftChild whether the 3-child is the left child of the parent
+     */
+    private void rotateAfterDelete(Node parent, Node sibling, boolean isLeftChild) {
+        Node outer = isLeftChild ? sibling.getRight() : sibling.getLeft();
+        if (parity(sibling) != parity(outer)) {
+            // the outer child of the sibling is a 1-child: single rotation
+            if (isLeftChild) leftRotate(parent);
+            else rightRotate(parent);
+            changeRank(sibling); // promote
+            changeRank(parent); // demote
+            if (parent.isLeaf()) changeRank(parent); // a leaf must not be a 2,2 node
+        } else {
+            // the inner child of the sibling is a 1-child: double rotation,
+            // the inner child is promoted twice and the parent demoted twice, which does not change their parity
+            if (isLeftChild) {
+                rightRotate(sibling);
+                leftRotate(parent);
+            } else {
+                leftRotate(sibling);
+                rightRotate(parent);
+            }
+            changeRank(sibling); // demote
+        }
+    }
+
+    /**
+     * The join of {@link BinaryTree#deleteRange(Comparable, Comparable)} does not maintain the ranks,
+     * so the values in range are deleted one by one instead.
+     */
+    @Override
+    public int deleteRange(Comparable lo, Comparable hi) {
+        int deleted = 0;
+        for (Comparable x : range(lo, hi)) {
+            if (remove(x)) deleted++;
+        }
+        return deleted;
+    }
+}
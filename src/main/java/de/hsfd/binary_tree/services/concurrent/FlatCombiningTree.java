@@ -0,0 +1,196 @@
+package de.hsfd.binary_tree.services.concurrent;
+
+import de.hsfd.binary_tree.services.BinaryTree;
+import de.hsfd.binary_tree.services.SearchTree;
+import de.hsfd.binary_tree.services.TreeCursor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe front-end, where only one thread at a time (the combiner) changes the tree.
+ * <p>
+ * Every thread publishes its operation in its own slot and waits. The thread that gets the lock becomes the
+ * combiner: it collects all pending operations, sorts them by their value and applies them in one pass, so that
+ * consecutive searches share the same path (the lookups use a {@link TreeCursor}). The results are handed back
+ * through the slots. Instead of every thread moving the tree and the lock between the cores, the tree stays in the
+ * cache of the combiner, and the other threads only read and write their own slot.
+ * </p>
+ * <p>
+ * The lock is a {@link ReentrantLock} and the waiting threads yield instead of blocking in {@code synchronized},
+ * so that virtual threads do not pin their carrier threads. A slot that has not been used for
+ * {@link FlatCombiningTree#CLEANUP_AGE} passes is removed from the publication list, so that many short-lived
+ * (virtual) threads do not leave their slots behind; the thread enqueues it again with its next operation.
+ * </p>
+ * Inspired from: Hendler, Incze, Shavit and Tzafrir, Flat Combining and the Synchronization-Parallelism
+ * Tradeoff (2010)
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class FlatCombiningTree implements SearchTree {
+
+    /**
+     * The number of combining passes after which an unused slot is removed from the publication list.
+     */
+    public static final int CLEANUP_AGE = 64;
+
+    /**
+     * The number of combining passes of the same combiner, before it hands over the lock,
+     * so that one thread is not stuck with the work of all others.
+     */
+    private static final int MAX_PASSES = 8;
+
+    private static final int SPINS_BEFORE_YIELD = 64;
+
+    private enum Operation {ADD, REMOVE, LOOKUP, RANGE}
+
+    private static final class Slot {
+        Operation operation;
+        Comparable argument;
+        /**
+         * The upper bound of a range query.
+         */
+        Comparable upper;
+        Object result;
+        /**
+         * Written by the owner to publish a request and by the combiner to hand back the result.
+         * The volatile write and read also publish the other fields.
+         */
+        volatile boolean pending;
+        /**
+         * Whether the slot is in the publication list, only set to false by the combiner.
+         */
+        volatile boolean active;
+        long lastPass;
+    }
+
+    private static final Comparator<Slot> BY_ARGUMENT = (a, b) -> a.argument.compareTo(b.argument);
+
+    private final BinaryTree tree;
+    private final TreeCursor cursor;
+    private final ReentrantLock combinerLock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<Slot> publications = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Slot> slots = ThreadLocal.withInitial(Slot::new);
+    private volatile int size;
+    private long passes;
+
+    /**
+     * @param tree the tree, which must not be used directly afterward
+     */
+    public FlatCombiningTree(BinaryTree tree) {
+        this.tree = tree;
+        this.cursor = tree.cursor();
+        this.size = tree.size();
+    }
+
+    @Override
+    public boolean add(Comparable data) {
+        return (Boolean) execute(Operation.ADD, data, null);
+    }
+
+    @Override
+    public boolean remove(Comparable x) {
+        return (Boolean) execute(Operation.REMOVE, x, null);
+    }
+
+    @Override
+    public Comparable lookup(Comparable x) {
+        return (Comparable) execute(Operation.LOOKUP, x, null);
+    }
+
+    @Override
+    public List<Comparable> range(Comparable lo, Comparable hi) {
+        return (List<Comparable>) execute(Operation.RANGE, lo, hi);
+    }
+
+    /**
+     * @return the number of values after the last combining pass
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private Object execute(Operation operation, Comparable argument, Comparable upper) {
+        Slot slot = slots.get();
+        slot.operation = operation;
+        slot.argument = argument;
+        slot.upper = upper;
+        slot.pending = true;
+        if (!slot.active) {
+            slot.active = true;
+            publications.add(slot);
+        }
+
+        int spins = 0;
+        while (slot.pending) {
+            if (combinerLock.tryLock()) {
+                try {
+                    for (int pass = 0; pass < MAX_PASSES && slot.pending; pass++) combine();
+                } finally {
+                    combinerLock.unlock();
+                }
+            } else if (++spins % SPINS_BEFORE_YIELD == 0) {
+                // let the other (virtual) threads on this carrier run
+                Thread.yield();
+            } else {
+                Thread.onSpinWait();
+            }
+            if (slot.pending && !slot.active) {
+                // the combiner has removed the slot before the request was published
+                slot.active = true;
+                publications.add(slot);
+            }
+        }
+        Object result = slot.result;
+        slot.argument = null;
+        slot.upper = null;
+        slot.result = null;
+        if (result instanceof RuntimeException e) throw e;
+        if (result instanceof Error e) throw e;
+        return result;
+    }
+
+    /**
+     * Applies all pending operations in the order of their values. Only called by the holder of the combiner lock.
+     */
+    private void combine() {
+        passes++;
+        ArrayList<Slot> pending = new ArrayList<>();
+        for (Iterator<Slot> iterator = publications.iterator(); iterator.hasNext(); ) {
+            Slot slot = iterator.next();
+            if (slot.pending) {
+                slot.lastPass = passes;
+                pending.add(slot);
+            } else if (passes - slot.lastPass > CLEANUP_AGE) {
+                iterator.remove();
+                slot.active = false;
+            }
+        }
+        // the requests of different threads are concurrent, so any order between them is linearizable
+        pending.sort(BY_ARGUMENT);
+
+        for (Slot slot : pending) {
+            try {
+                slot.result = switch (slot.operation) {
+                    case ADD -> tree.add(slot.argument);
+                    case REMOVE -> tree.remove(slot.argument);
+                    case LOOKUP -> cursor.lookup(slot.argument);
+                    case RANGE -> tree.range(slot.argument, slot.upper);
+                };
+            } catch (RuntimeException | Error e) {
+                // the exception belongs to the thread of the request, not to the combiner, and even an error
+                // (e.g. a StackOverflowError on a degenerate tree) must not leave the other requests of this pass
+                // pending, or the next combiner would apply them a second time
+                slot.result = e;
+            } finally {
+                // the size is published before the result, so the requesting thread sees its own change
+                size = tree.size();
+                slot.pending = false;
+            }
+        }
+    }
+}
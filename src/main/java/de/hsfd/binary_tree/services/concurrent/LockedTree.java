@@ -0,0 +1,96 @@
+package de.hsfd.binary_tree.services.concurrent;
+
+import de.hsfd.binary_tree.services.BinaryTree;
+import de.hsfd.binary_tree.services.SearchTree;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The plain thread-safe wrapper: every operation holds one {@link ReentrantLock} of the whole tree.
+ * This is the baseline for {@link ShardedTree} and {@link FlatCombiningTree}.
+ * A {@link ReentrantLock} is used instead of {@code synchronized}, so that a waiting virtual thread
+ * does not pin its carrier thread.
+ */
+@SuppressWarnings("rawtypes")
+public class LockedTree implements SearchTree {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SearchTree tree;
+
+    /**
+     * @param tree the tree, which must not be used directly afterward
+     */
+    public LockedTree(SearchTree tree) {
+        this.tree = tree;
+    }
+
+    @Override
+    public boolean add(Comparable data) {
+        lock.lock();
+        try {
+            return tree.add(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Comparable x) {
+        lock.lock();
+        try {
+            return tree.remove(x);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Comparable lookup(Comparable x) {
+        lock.lock();
+        try {
+            return tree.lookup(x);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Comparable> range(Comparable lo, Comparable hi) {
+        lock.lock();
+        try {
+            return tree.range(lo, hi);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return tree.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Exports the wrapped tree with {@link BinaryTree#exportDOTAsync(String)}. The lock is only held while the
+     * snapshot is copied, the other threads can change the tree again while the file is written.
+     *
+     * @throws UnsupportedOperationException if the wrapped tree is not a {@link BinaryTree}
+     */
+    public CompletableFuture<Path> exportDOTAsync(String filename) {
+        if (!(tree instanceof BinaryTree binaryTree))
+            throw new UnsupportedOperationException(tree.getClass().getSimpleName() + " cannot be exported as DOT");
+        lock.lock();
+        try {
+            return binaryTree.exportDOTAsync(filename);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package de.hsfd.binary_tree.services.concurrent;
+
+import de.hsfd.binary_tree.services.BinaryTree;
+import de.hsfd.binary_tree.services.SearchTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe front-end, which partitions the key space into contiguous ranges. Every range (shard) is backed by
+ * its own {@link BinaryTree} (e.g. an {@link de.hsfd.binary_tree.services.RBTree}) with its own lock, so that writes
+ * to different ranges run in parallel instead of waiting for one global lock.
+ * <p>
+ * The shard boundaries are chosen from the quantiles of a sample of the expected keys. If the shards still grow
+ * skewed, the biggest shard is split at its median and the two neighbouring shards with the smallest total size are
+ * merged, so that the number of shards stays the same.
+ * </p>
+ * <p>
+ * The layout (the boundaries and the shards) is an immutable snapshot in a volatile field. An operation only takes
+ * the lock of its shard, and then checks that the layout is still the current one. The rebalancing holds the locks
+ * of all shards while it publishes a new layout, so an operation that finds a replaced layout looks up its shard
+ * again. The size is a {@link LongAdder}, so that the writers to different shards share no written state.
+ * </p>
+ * <p>
+ * The range queries and the iterator stitch the results of the shards together in order. They lock one shard at a
+ * time, so they are weakly consistent: a concurrent change to a shard that has not been visited yet is visible.
+ * </p>
+ * Inspired from: Herlihy and Shavit, The Art of Multiprocessor Programming, chapter 13 (lock striping)
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ShardedTree implements SearchTree, Iterable<Comparable> {
+
+    /**
+     * A shard is split if it holds more than this factor times the average size of the configured shards.
+     * The bound is reachable for every configured number of shards above 1, because one shard can hold all values.
+     */
+    public static final int SKEW_FACTOR = 2;
+
+    /**
+     * Below this size, a shard is never rebalanced, so that a small tree does not reshuffle all the time.
+     */
+    public static final int MIN_SHARD_SIZE = 1024;
+
+    /**
+     * The skew of a shard is only checked whenever its size reaches a multiple of this, so that not every insertion
+     * has to sum up the size of the tree.
+     */
+    private static final int SKEW_CHECK_INTERVAL = 64;
+
+    private static final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final BinaryTree tree;
+
+        Shard(BinaryTree tree) {
+            this.tree = tree;
+        }
+    }
+
+    private final Supplier<? extends BinaryTree> factory;
+    private final int shardCount;
+    /**
+     * Held by the thread that rebalances, so that only one layout is replaced at a time.
+     */
+    private final ReentrantLock rebalanceLock = new ReentrantLock();
+    private final LongAdder size = new LongAdder();
+    private volatile Layout layout;
+
+    /**
+     * The lower bound of shards[i + 1] is boundaries[i]. The first shard has no lower bound.
+     * The arrays are never changed, a rebalancing publishes a new layout instead.
+     */
+    private record Layout(Comparable[] boundaries, Shard[] shards) {
+
+        /**
+         * @return the index of the shard whose range contains x
+         */
+        int indexOf(Comparable x) {
+            int i = Arrays.binarySearch(boundaries, x);
+            // a boundary is the lower bound of the next shard
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+    }
+
+    /**
+     * Starts with a single shard, which is split online until there are shardCount shards.
+     *
+     * @param factory    creates the tree of a new shard, e.g. {@code RBTree::new}
+     * @param shardCount the number of shards, e.g. the number of writing threads
+     */
+    public ShardedTree(Supplier<? extends BinaryTree> factory, int shardCount) {
+        this(factory, shardCount, List.of());
+    }
+
+    /**
+     * @param factory    creates the tree of a new shard, e.g. {@code RBTree::new}
+     * @param shardCount the number of shards, e.g. the number of writing threads
+     * @param sample     some keys with the expected distribution, which are not added to the tree
+     */
+    public ShardedTree(Supplier<? extends BinaryTree> factory, int shardCount, Collection<? extends Comparable> sample) {
+        if (shardCount < 1) throw new IllegalArgumentException("The number of shards must be at least 1, but was " + shardCount);
+        this.factory = factory;
+        this.shardCount = shardCount;
+
+        Comparable[] sorted = sample.toArray(new Comparable[0]);
+        Arrays.sort(sorted);
+        List<Comparable> chosen = new ArrayList<>();
+        for (int i = 1; i < shardCount && sorted.length > 0; i++) {
+            Comparable quantile = sorted[(int) ((long) i * sorted.length / shardCount)];
+            // a heavily repeated key in the sample must not create empty shards
+            if (chosen.isEmpty() || chosen.getLast().compareTo(quantile) < 0) chosen.add(quantile);
+        }
+        Shard[] shards = new Shard[chosen.size() + 1];
+        for (int i = 0; i < shards.length; i++) shards[i] = new Shard(factory.get());
+        layout = new Layout(chosen.toArray(new Comparable[0]), shards);
+    }
+
+    /**
+     * Locks the shard whose range contains x in the current layout.
+     *
+     * @return the locked shard, which the caller has to unlock
+     */
+    private Shard lockShardOf(Comparable x) {
+        while (true) {
+            Layout current = layout;
+            Shard shard = current.shards[current.indexOf(x)];
+            shard.lock.lock();
+            // the layout is only replaced while all shards of the old one are locked
+            if (current == layout) return shard;
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean add(Comparable data) {
+        boolean added;
+        boolean skewed = false;
+        Shard shard = lockShardOf(data);
+        try {
+            added = shard.tree.add(data);
+            if (added) {
+                size.increment();
+                int shardSize = shard.tree.size();
+                if (shardSize % SKEW_CHECK_INTERVAL == 0) {
+                    skewed = isSkewed(shardSize, size.intValue(), layout.shards.length);
+                }
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        // the rebalancing locks all shards, so it checks the layout again
+        if (skewed) rebalance();
+        return added;
+    }
+
+    /**
+     * @return true if the shard should be split, either because there are fewer shards than configured,
+     * or because the shard holds more than {@link ShardedTree#SKEW_FACTOR} times the average size of the configured
+     * shards
+     */
+    private boolean isSkewed(int shardSize, int totalSize, int currentShards) {
+        if (shardSize <= MIN_SHARD_SIZE) return false;
+        return currentShards < shardCount || (long) shardSize * shardCount > (long) SKEW_FACTOR * totalSize;
+    }
+
+    @Override
+    public boolean remove(Comparable x) {
+        Shard shard = lockShardOf(x);
+        try {
+            if (!shard.tree.remove(x)) return false;
+            size.decrement();
+            return true;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public Comparable lookup(Comparable x) {
+        Shard shard = lockShardOf(x);
+        try {
+            return shard.tree.lookup(x);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of values, exact if no write runs concurrently
+     */
+    @Override
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * @return the current number of shards, which is smaller than the configured number until enough keys are added
+     */
+    public int shards() {
+        return layout.shards.length;
+    }
+
+    /**
+     * @return the number of values of every shard in the order of the ranges, e.g. to check the balance
+     */
+    int[] shardSizes() {
+        Shard[] shards = layout.shards;
+        int[] sizes = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            shard.lock.lock();
+            try {
+                sizes[i] = shard.tree.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Collects all values between lo and hi (both inclusive) in ascending order from all shards in range.
+     *
+     * @param lo the lower bound
+     * @param hi the upper bound
+     * @return the values in range, empty if lo is greater than hi
+     */
+    @Override
+    public List<Comparable> range(Comparable lo, Comparable hi) {
+        List<Comparable> result = new ArrayList<>();
+        if (lo.compareTo(hi) > 0) return result;
+        // the lower bound of the values that have not been collected yet
+        Comparable from = lo;
+        while (true) {
+            Layout current = layout;
+            int i = current.indexOf(from);
+            Shard shard = current.shards[i];
+            shard.lock.lock();
+            try {
+                // after a rebalancing, the rest is looked up again in the new layout
+                if (current != layout) continue;
+                result.addAll(shard.tree.range(from, hi));
+                if (i == current.boundaries.length || current.boundaries[i].compareTo(hi) > 0) return result;
+                from = current.boundaries[i];
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Iterates over all values in ascending order. The values of one shard are copied at a time, when the iterator
+     * reaches the shard. If the layout changes in between, the iteration continues after the last returned value.
+     *
+     * @return a weakly consistent iterator
+     */
+    @Override
+    public Iterator<Comparable> iterator() {
+        return new Iterator<>() {
+            private Iterator<Comparable> chunk = List.<Comparable>of().iterator();
+            /**
+             * The lower bound of the next shard to be copied, null for the first shard.
+             */
+            private Comparable from;
+            private Comparable last;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                while (!chunk.hasNext() && !done) nextChunk();
+                return chunk.hasNext();
+            }
+
+            @Override
+            public Comparable next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                last = chunk.next();
+                return last;
+            }
+
+            private void nextChunk() {
+                List<Comparable> values = new ArrayList<>();
+                Layout current;
+                int i;
+                Shard shard;
+                while (true) {
+                    current = layout;
+                    i = from == null ? 0 : current.indexOf(from);
+                    shard = current.shards[i];
+                    shard.lock.lock();
+                    if (current == layout) break;
+                    shard.lock.unlock();
+                }
+                try {
+                    for (Comparable value : shard.tree) {
+                        // after a rebalancing, the shard can also hold values that have already been returned
+                        if (last == null || value.compareTo(last) > 0) values.add(value);
+                    }
+                } finally {
+                    shard.lock.unlock();
+                }
+                done = i == current.boundaries.length;
+                if (!done) from = current.boundaries[i];
+                chunk = values.iterator();
+            }
+        };
+    }
+
+    /**
+     * Splits the biggest shard at its median. If there are more shards than configured afterward,
+     * the two neighbouring shards with the smallest total size are merged.
+     */
+    private void rebalance() {
+        rebalanceLock.lock();
+        // only replaced under the rebalance lock, so it stays the current layout
+        Layout current = layout;
+        Shard[] shards = current.shards;
+        Comparable[] boundaries = current.boundaries;
+        // in the order of the ranges, every other thread holds at most one shard lock
+        for (Shard shard : shards) shard.lock.lock();
+        try {
+            int biggest = 0;
+            for (int i = 1; i < shards.length; i++) {
+                if (shards[i].tree.size() > shards[biggest].tree.size()) biggest = i;
+            }
+            // another thread may have rebalanced in the meantime
+            if (!isSkewed(shards[biggest].tree.size(), size.intValue(), shards.length)) return;
+
+            List<Shard> newShards = new ArrayList<>(Arrays.asList(shards));
+            List<Comparable> newBoundaries = new ArrayList<>(Arrays.asList(boundaries));
+
+            BinaryTree tree = shards[biggest].tree;
+            List<Comparable> values = new ArrayList<>(tree.size());
+            tree.forEach(values::add);
+            Comparable median = values.get(values.size() / 2);
+            // the median becomes a lower bound, so it must be bigger than the lower bound of the shard
+            if (median.compareTo(values.getFirst()) == 0) return;
+            BinaryTree upper = factory.get();
+            for (Comparable value : tree.range(median, values.getLast())) upper.add(value);
+            tree.deleteRange(median, values.getLast());
+            newShards.add(biggest + 1, new Shard(upper));
+            newBoundaries.add(biggest, median);
+
+            if (newShards.size() > shardCount) {
+                int smallest = 0;
+                for (int i = 1; i < newShards.size() - 1; i++) {
+                    if (pairSize(newShards, i) < pairSize(newShards, smallest)) smallest = i;
+                }
+                BinaryTree left = newShards.get(smallest).tree;
+                for (Comparable value : newShards.get(smallest + 1).tree) left.add(value);
+                newShards.remove(smallest + 1);
+                newBoundaries.remove(smallest);
+            }
+
+            layout = new Layout(newBoundaries.toArray(new Comparable[0]), newShards.toArray(new Shard[0]));
+        } finally {
+            for (Shard shard : shards) shard.lock.unlock();
+            rebalanceLock.unlock();
+        }
+    }
+
+    private static int pairSize(List<Shard> shards, int i) {
+        return shards.get(i).tree.size() + shards.get(i + 1).tree.size();
+    }
+}
@@ -0,0 +1,65 @@
+package de.hsfd.binary_tree.services.replication;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes the values of a replicated tree into the binary log and reads them back on the replicas.
+ * The primary and its replicas must use the same codec.
+ */
+@SuppressWarnings("rawtypes")
+public interface KeyCodec {
+
+    /**
+     * @throws ClassCastException if the value does not have the type of the codec
+     */
+    void write(DataOutput out, Comparable value) throws IOException;
+
+    Comparable read(DataInput in) throws IOException;
+
+    /**
+     * {@link Integer} values as 4 bytes.
+     */
+    KeyCodec INTEGER = new KeyCodec() {
+        @Override
+        public void write(DataOutput out, Comparable value) throws IOException {
+            out.writeInt((Integer) value);
+        }
+
+        @Override
+        public Comparable read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    /**
+     * {@link Long} values as 8 bytes, the keys of a {@link de.hsfd.binary_tree.driver.Trace}.
+     */
+    KeyCodec LONG = new KeyCodec() {
+        @Override
+        public void write(DataOutput out, Comparable value) throws IOException {
+            out.writeLong((Long) value);
+        }
+
+        @Override
+        public Comparable read(DataInput in) throws IOException {
+            return in.readLong();
+        }
+    };
+
+    /**
+     * {@link String} values in modified UTF-8, at most 65535 bytes each.
+     */
+    KeyCodec STRING = new KeyCodec() {
+        @Override
+        public void write(DataOutput out, Comparable value) throws IOException {
+            out.writeUTF((String) value);
+        }
+
+        @Override
+        public Comparable read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    };
+}
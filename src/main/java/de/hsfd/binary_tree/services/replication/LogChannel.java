@@ -0,0 +1,33 @@
+package de.hsfd.binary_tree.services.replication;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Carries the encoded batches of a {@link ReplicatedTree} to one {@link ReadReplica}, in the order they are sent.
+ * The primary only sends, the replica only receives.
+ */
+public interface LogChannel extends Closeable {
+
+    /**
+     * Sends a batch, it may block if the channel is full.
+     *
+     * @param batch the encoded batch, which must not be changed afterward
+     * @throws IOException if the channel is closed or broken
+     */
+    void send(byte[] batch) throws IOException;
+
+    /**
+     * @return the next batch, or null if there is none yet
+     * @throws EOFException if the channel has been closed and all batches have been received
+     */
+    byte[] poll() throws IOException;
+
+    /**
+     * Waits for the next batch.
+     *
+     * @throws EOFException if the channel has been closed and all batches have been received
+     */
+    byte[] take() throws IOException, InterruptedException;
+}
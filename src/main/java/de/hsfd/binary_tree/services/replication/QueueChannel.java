@@ -0,0 +1,81 @@
+package de.hsfd.binary_tree.services.replication;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An in-process {@link LogChannel} between threads, backed by a {@link BlockingQueue}. The batches are handed over
+ * as they are, without copying.
+ */
+public class QueueChannel implements LogChannel {
+
+    /**
+     * Queued by {@link QueueChannel#close()} behind the last batch.
+     */
+    private static final byte[] CLOSED = new byte[0];
+
+    private final BlockingQueue<byte[]> queue;
+    private volatile boolean closed;
+    /**
+     * False while a full queue has no room for {@link QueueChannel#CLOSED}, it is queued by the next receive then.
+     */
+    private volatile boolean closedQueued;
+
+    /**
+     * Creates an unbounded channel, a slow replica never blocks the primary.
+     */
+    public QueueChannel() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param capacity the maximal number of queued batches, beyond it the primary waits for the replica
+     */
+    public QueueChannel(int capacity) {
+        queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void send(byte[] batch) throws IOException {
+        if (closed) throw new IOException("The channel is closed");
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while the channel was full");
+        }
+    }
+
+    @Override
+    public byte[] poll() throws IOException {
+        return received(queue.poll());
+    }
+
+    @Override
+    public byte[] take() throws IOException, InterruptedException {
+        return received(queue.take());
+    }
+
+    private byte[] received(byte[] batch) throws EOFException {
+        if (batch == CLOSED) {
+            // left in the queue for the next call
+            queue.offer(CLOSED);
+            throw new EOFException("The channel is closed");
+        }
+        if (batch != null && closed && !closedQueued) closedQueued = queue.offer(CLOSED);
+        return batch;
+    }
+
+    /**
+     * The batches that have already been sent can still be received.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        closedQueued = queue.offer(CLOSED);
+    }
+}
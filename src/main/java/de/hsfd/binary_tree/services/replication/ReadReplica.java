@@ -0,0 +1,134 @@
+package de.hsfd.binary_tree.services.replication;
+
+import de.hsfd.binary_tree.services.BinaryTree;
+import de.hsfd.binary_tree.services.SearchTree;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A read replica of a {@link ReplicatedTree}: its own tree, which is brought up to date by applying the batches of
+ * the log. The replica belongs to one thread (e.g. one worker), which both applies the batches and reads, so that
+ * neither needs a lock: the worker calls {@link ReadReplica#catchUp()} between its reads, or
+ * {@link ReadReplica#awaitSequence(long)} to read its own writes.
+ * <p>
+ * The replica rejects a batch that does not continue its sequence, or an operation that does not change its tree
+ * like it changed the primary, instead of silently diverging from the primary.
+ * </p>
+ */
+@SuppressWarnings("rawtypes")
+public class ReadReplica implements SearchTree {
+
+    private final Supplier<? extends BinaryTree> factory;
+    private final KeyCodec codec;
+    private final LogChannel channel;
+    private BinaryTree tree;
+    /**
+     * Written by the owner only, and read by other threads, e.g. to monitor how far the replica lags behind.
+     */
+    private volatile long appliedSequence;
+
+    /**
+     * @param factory creates the tree, again for every snapshot, e.g. {@code RBTree::new}. It should be configured
+     *                like the primary, e.g. both in multiset mode.
+     * @param codec   reads the values from the log, the same as the one of the primary
+     * @param channel receives the batches, see {@link ReplicatedTree#attach(LogChannel)}
+     */
+    public ReadReplica(Supplier<? extends BinaryTree> factory, KeyCodec codec, LogChannel channel) {
+        this.factory = factory;
+        this.codec = codec;
+        this.channel = channel;
+        this.tree = factory.get();
+    }
+
+    /**
+     * Applies all batches that have arrived, without waiting for more.
+     *
+     * @return the sequence number of the last applied operation
+     * @throws java.io.EOFException if the log has ended, the replica can still be read
+     * @throws IOException          if a batch cannot be received, or does not continue the sequence
+     */
+    public long catchUp() throws IOException {
+        byte[] batch;
+        while ((batch = channel.poll()) != null) apply(batch);
+        return appliedSequence;
+    }
+
+    /**
+     * Waits until the replica has applied the operation with the sequence number, e.g. the one returned by
+     * {@link ReplicatedTree#flush()} after a write, so that the replica shows that write.
+     *
+     * @throws java.io.EOFException if the log ends before
+     */
+    public void awaitSequence(long sequence) throws IOException, InterruptedException {
+        while (appliedSequence < sequence) apply(channel.take());
+    }
+
+    /**
+     * @return the sequence number of the last applied operation, 0 before the first one
+     */
+    public long appliedSequence() {
+        return appliedSequence;
+    }
+
+    private void apply(byte[] batch) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(batch));
+        byte kind = in.readByte();
+        long sequence = in.readLong();
+        int count = in.readInt();
+        switch (kind) {
+            case ReplicatedTree.SNAPSHOT -> {
+                BinaryTree snapshot = factory.get();
+                for (int i = 0; i < count; i++) snapshot.add(codec.read(in));
+                tree = snapshot;
+                appliedSequence = sequence;
+            }
+            case ReplicatedTree.OPERATIONS -> {
+                if (sequence != appliedSequence + 1) {
+                    throw new IOException("The batch starts at " + sequence + ", but the replica is at " + appliedSequence);
+                }
+                for (int i = 0; i < count; i++) {
+                    byte operation = in.readByte();
+                    Comparable value = codec.read(in);
+                    boolean changed = switch (operation) {
+                        case ReplicatedTree.INSERT -> tree.add(value);
+                        case ReplicatedTree.DELETE -> tree.remove(value);
+                        default -> throw new IOException("operation " + (sequence + i) + ": unknown code " + operation);
+                    };
+                    if (!changed) throw new IOException("operation " + (sequence + i) + " did not change the replica");
+                    // published per operation, so that a failing batch leaves the right position
+                    appliedSequence = sequence + i;
+                }
+            }
+            default -> throw new IOException("unknown batch kind " + kind);
+        }
+    }
+
+    @Override
+    public boolean add(Comparable data) {
+        throw new UnsupportedOperationException("A read replica is only changed by the log of its primary");
+    }
+
+    @Override
+    public boolean remove(Comparable x) {
+        throw new UnsupportedOperationException("A read replica is only changed by the log of its primary");
+    }
+
+    @Override
+    public Comparable lookup(Comparable x) {
+        return tree.lookup(x);
+    }
+
+    @Override
+    public List<Comparable> range(Comparable lo, Comparable hi) {
+        return tree.range(lo, hi);
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+}
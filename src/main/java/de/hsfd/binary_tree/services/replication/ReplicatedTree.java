@@ -0,0 +1,295 @@
+package de.hsfd.binary_tree.services.replication;
+
+import de.hsfd.binary_tree.services.BinaryTree;
+import de.hsfd.binary_tree.services.SearchTree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The primary of a replicated tree: a thread-safe wrapper like {@link de.hsfd.binary_tree.services.concurrent.LockedTree},
+ * which also appends every insertion and deletion that changes the tree to a sequenced binary log, and ships the log
+ * in batches to its {@link ReadReplica}s. The replicas apply the same operations in the same order, so the reads can
+ * be spread over them instead of all threads sharing the lock of one tree.
+ * <p>
+ * The operations are numbered from 1 in the order they are applied under the lock. An operation that does not change
+ * the tree (e.g. adding a value that is already in it) is not logged. A batch is sent when it is full, or by
+ * {@link ReplicatedTree#flush()}, which returns the sequence number a replica has to reach to see all writes so far.
+ * A replica that is attached later first gets a snapshot of the values, and then the following batches.
+ * </p>
+ * <p>
+ * Binary format of a batch, big-endian like a binary {@link de.hsfd.binary_tree.driver.Trace}: the kind as one byte,
+ * the sequence number as {@code long} and the number of entries as {@code int}. An {@link ReplicatedTree#OPERATIONS}
+ * batch starts with the operation of the sequence number, and every entry is the operation
+ * ({@link ReplicatedTree#INSERT} or {@link ReplicatedTree#DELETE}) as one byte followed by the value. A
+ * {@link ReplicatedTree#SNAPSHOT} holds the state after the operation of the sequence number, and every entry is a
+ * value in ascending order (repeated as often as it is counted in a multiset). The values are written by the
+ * {@link KeyCodec}.
+ * </p>
+ * Inspired from: the log shipping of database replication, e.g. the write-ahead log streaming of PostgreSQL
+ */
+@SuppressWarnings("rawtypes")
+public class ReplicatedTree implements SearchTree, Closeable {
+
+    static final byte OPERATIONS = 0;
+    static final byte SNAPSHOT = 1;
+    static final byte INSERT = 0;
+    static final byte DELETE = 1;
+    /**
+     * The kind, the sequence number and the number of entries.
+     */
+    static final int HEADER_BYTES = 1 + Long.BYTES + Integer.BYTES;
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final BinaryTree tree;
+    private final KeyCodec codec;
+    private final int batchSize;
+    private final List<LogChannel> followers = new ArrayList<>();
+
+    private final Buffer buffer = new Buffer();
+    private final DataOutputStream out = new DataOutputStream(buffer);
+    /**
+     * The sequence number of the last logged operation, 0 before the first one.
+     */
+    private long sequence;
+    private int pending;
+
+    public ReplicatedTree(BinaryTree tree, KeyCodec codec) {
+        this(tree, codec, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param tree      the primary tree, which must not be used directly afterward
+     * @param codec     writes the values into the log
+     * @param batchSize the number of operations, after which a batch is sent
+     */
+    public ReplicatedTree(BinaryTree tree, KeyCodec codec, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("The batch size must be at least 1, but was " + batchSize);
+        this.tree = tree;
+        this.codec = codec;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean add(Comparable data) {
+        return apply(INSERT, data);
+    }
+
+    @Override
+    public boolean remove(Comparable x) {
+        return apply(DELETE, x);
+    }
+
+    /**
+     * The value is encoded before the tree is changed, so that a value the codec cannot write neither reaches the
+     * tree nor the log. The entry is taken back, if the operation does not change the tree or fails, so that the
+     * pending entries always match their count in the header of the batch.
+     */
+    private boolean apply(byte operation, Comparable value) {
+        lock.lock();
+        try {
+            int mark = buffer.size();
+            boolean changed = false;
+            try {
+                out.writeByte(operation);
+                codec.write(out, value);
+                changed = operation == INSERT ? tree.add(value) : tree.remove(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                if (!changed) buffer.truncate(mark);
+            }
+            if (!changed) return false;
+            sequence++;
+            if (++pending == batchSize) ship();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the pending operations to all replicas.
+     *
+     * @return the sequence number of the last operation, which a replica has applied, once it has seen all writes
+     * so far (see {@link ReadReplica#awaitSequence(long)})
+     */
+    public long flush() {
+        lock.lock();
+        try {
+            ship();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the current values as a snapshot to a new replica, which gets all following batches afterward.
+     *
+     * @throws IOException if the snapshot cannot be sent, the replica is not attached then
+     */
+    public void attach(LogChannel follower) throws IOException {
+        lock.lock();
+        try {
+            // the pending operations are already part of the snapshot, the other replicas get them first
+            ship();
+            ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+            DataOutputStream values = new DataOutputStream(snapshot);
+            for (int i = 0; i < HEADER_BYTES; i++) values.writeByte(0);
+            int count = 0;
+            for (Comparable value : tree) {
+                codec.write(values, value);
+                count++;
+            }
+            byte[] batch = snapshot.toByteArray();
+            ByteBuffer.wrap(batch).put(SNAPSHOT).putLong(sequence).putInt(count);
+            follower.send(batch);
+            followers.add(follower);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops sending batches to a replica, the channel is not closed.
+     */
+    public void detach(LogChannel follower) {
+        lock.lock();
+        try {
+            followers.remove(follower);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the pending batch. A replica whose channel fails is detached and closed, so that one broken replica
+     * does not stop the primary and the others.
+     */
+    private void ship() {
+        if (pending == 0) return;
+        byte[] batch = new byte[HEADER_BYTES + buffer.size()];
+        ByteBuffer.wrap(batch).put(OPERATIONS).putLong(sequence - pending + 1).putInt(pending)
+                .put(buffer.bytes(), 0, buffer.size());
+        buffer.reset();
+        pending = 0;
+        for (LogChannel follower : List.copyOf(followers)) {
+            try {
+                follower.send(batch);
+            } catch (IOException e) {
+                followers.remove(follower);
+                try {
+                    follower.close();
+                } catch (IOException ignored) {
+                    // the channel is broken anyway
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the sequence number of the last logged operation, it may not have been sent yet
+     */
+    public long sequence() {
+        lock.lock();
+        try {
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of attached replicas
+     */
+    public int followers() {
+        lock.lock();
+        try {
+            return followers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Comparable lookup(Comparable x) {
+        lock.lock();
+        try {
+            return tree.lookup(x);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Comparable> range(Comparable lo, Comparable hi) {
+        lock.lock();
+        try {
+            return tree.range(lo, hi);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return tree.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the pending operations and closes the channels, the replicas receive the end of the log after the
+     * last batch.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            ship();
+            IOException failure = null;
+            for (LogChannel follower : followers) {
+                try {
+                    follower.close();
+                } catch (IOException e) {
+                    if (failure == null) failure = e;
+                }
+            }
+            followers.clear();
+            if (failure != null) throw failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The pending operations, which can be cut back to an earlier size.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(4096);
+        }
+
+        void truncate(int size) {
+            count = size;
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package de.hsfd.binary_tree.services.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * A {@link LogChannel} over a socket, e.g. on the loopback interface to a replica in another process. Every batch is
+ * framed by its length as {@code int}, big-endian, and flushed at once, so that it arrives as a whole.
+ * <p>
+ * Both ends create their own channel: the primary with {@link StreamChannel#accept(ServerSocket)} and the replica
+ * with {@link StreamChannel#connect(int)}, or the other way around.
+ * </p>
+ */
+public class StreamChannel implements LogChannel {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    public StreamChannel(Socket socket) throws IOException {
+        this.socket = socket;
+        // the batches are already collected by the primary, Nagle's algorithm would only delay them
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Connects to a primary or a replica on the loopback interface.
+     */
+    public static StreamChannel connect(int port) throws IOException {
+        return new StreamChannel(new Socket(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Waits for the connection of the other end.
+     */
+    public static StreamChannel accept(ServerSocket server) throws IOException {
+        return new StreamChannel(server.accept());
+    }
+
+    @Override
+    public synchronized void send(byte[] batch) throws IOException {
+        out.writeInt(batch.length);
+        out.write(batch);
+        out.flush();
+    }
+
+    /**
+     * A batch is only returned, if at least its length has arrived. The rest of it has been sent with the same
+     * flush, so the read does not wait long for it. A closed stream is only detected by {@link StreamChannel#take()},
+     * this returns null then.
+     */
+    @Override
+    public byte[] poll() throws IOException {
+        return in.available() >= Integer.BYTES ? receive() : null;
+    }
+
+    @Override
+    public byte[] take() throws IOException {
+        return receive();
+    }
+
+    private byte[] receive() throws IOException {
+        byte[] batch = new byte[in.readInt()];
+        in.readFully(batch);
+        return batch;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -16,6 +16,19 @@ public class CharComparable implements Comparable{
         return Character.compare(value, ((CharComparable)o).value);
     }
 
+    /**
+     * Consistent with {@link CharComparable#compareTo(Object)}, e.g. for the {@link de.hsfd.binary_tree.services.BloomFilter}.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CharComparable other && value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Character.hashCode(value);
+    }
+
     @Override
     public String toString() {
         return String.valueOf(value);
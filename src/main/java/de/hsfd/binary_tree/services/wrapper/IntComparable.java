@@ -16,6 +16,19 @@ public class IntComparable implements Comparable {
         return Integer.compare(this.value, other.value);
     }
 
+    /**
+     * Consistent with {@link IntComparable#compareTo(Object)}, e.g. for the {@link de.hsfd.binary_tree.services.BloomFilter}.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof IntComparable other && value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(value);
+    }
+
     @Override
     public String toString() {
         return String.valueOf(value);
@@ -0,0 +1,142 @@
+package de.hsfd.binary_tree.services.wrapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A key in an order-preserving binary form: the key is encoded once into bytes, whose unsigned lexicographic order
+ * is the order of the key. The first 8 bytes are stored as one {@code long}, the rest as the tail, so most
+ * comparisons during a search are a single {@code long} comparison, and only keys with the same first 8 bytes
+ * compare their tails.
+ * <p>
+ * The encodings are prefix-free, so that a composite key is the concatenation of its components:
+ * </p>
+ * <ul>
+ *     <li>{@code int} and {@code long}: big-endian with the sign bit flipped</li>
+ *     <li>{@code String}: UTF-8, every 0x00 byte escaped as 0x00 0xFF, terminated by 0x00 0x00.
+ *     The order is the order of the code points, which is the order of {@link String#compareTo(String)}
+ *     except for characters above U+FFFF</li>
+ * </ul>
+ * Keys with different component types must not be mixed in one tree.
+ * <p>
+ * Inspired from: Graefe and Larson, B-Tree Indexes and CPU Caches (2001), "poor man's normalized keys",
+ * and the memcomparable format of MyRocks
+ * </p>
+ */
+@SuppressWarnings("rawtypes")
+public final class NormalizedKey implements Comparable {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * The first 8 bytes, big-endian, with the sign bit flipped, so that the signed comparison of the prefixes is
+     * the unsigned comparison of the bytes. Shorter keys are padded with zeros.
+     */
+    private final long prefix;
+    private final byte[] tail;
+    /**
+     * The original value or the list of the components, only for {@link NormalizedKey#toString()}.
+     */
+    private final Object value;
+
+    private NormalizedKey(byte[] bytes, int length, Object value) {
+        long p = 0;
+        for (int i = 0; i < Long.BYTES; i++) p = p << 8 | (i < length ? bytes[i] & 0xFF : 0);
+        this.prefix = p ^ Long.MIN_VALUE;
+        this.tail = length > Long.BYTES ? Arrays.copyOfRange(bytes, Long.BYTES, length) : EMPTY;
+        this.value = value;
+    }
+
+    public static NormalizedKey ofInt(int value) {
+        return new Builder().addInt(value).build(value);
+    }
+
+    public static NormalizedKey ofLong(long value) {
+        return new Builder().addLong(value).build(value);
+    }
+
+    public static NormalizedKey ofString(String value) {
+        return new Builder().addString(value).build(value);
+    }
+
+    /**
+     * @return a builder for a composite key, e.g. {@code NormalizedKey.builder().addString(name).addLong(id).build()}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int compareTo(Object o) {
+        NormalizedKey other = (NormalizedKey) o;
+        if (prefix != other.prefix) return prefix < other.prefix ? -1 : 1;
+        return Arrays.compareUnsigned(tail, other.tail);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof NormalizedKey other && prefix == other.prefix && Arrays.equals(tail, other.tail);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(prefix) * 31 + Arrays.hashCode(tail);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+
+    /**
+     * Encodes the components of a composite key in the order of their significance.
+     */
+    public static final class Builder {
+        private byte[] bytes = new byte[16];
+        private int length;
+        private final List<Object> components = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder addInt(int value) {
+            components.add(value);
+            int flipped = value ^ Integer.MIN_VALUE;
+            for (int shift = 24; shift >= 0; shift -= 8) put((byte) (flipped >>> shift));
+            return this;
+        }
+
+        public Builder addLong(long value) {
+            components.add(value);
+            long flipped = value ^ Long.MIN_VALUE;
+            for (int shift = 56; shift >= 0; shift -= 8) put((byte) (flipped >>> shift));
+            return this;
+        }
+
+        public Builder addString(String value) {
+            components.add(value);
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                put(b);
+                if (b == 0) put((byte) 0xFF);
+            }
+            put((byte) 0);
+            put((byte) 0);
+            return this;
+        }
+
+        public NormalizedKey build() {
+            return build(components.size() == 1 ? components.get(0) : List.copyOf(components));
+        }
+
+        private NormalizedKey build(Object value) {
+            return new NormalizedKey(bytes, length, value);
+        }
+
+        private void put(byte b) {
+            if (length == bytes.length) bytes = Arrays.copyOf(bytes, length * 2);
+            bytes[length++] = b;
+        }
+    }
+}
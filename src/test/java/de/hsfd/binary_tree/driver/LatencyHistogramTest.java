@@ -0,0 +1,58 @@
+package de.hsfd.binary_tree.driver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsAreContiguousAndCoverTheirValues() {
+        long previousHighest = -1;
+        for (int i = 0; LatencyHistogram.highestValueOf(i) < Long.MAX_VALUE; i++) {
+            long highest = LatencyHistogram.highestValueOf(i);
+            assertEquals(i, LatencyHistogram.indexOf(previousHighest + 1), "the lowest value of bucket " + i);
+            assertEquals(i, LatencyHistogram.indexOf(highest), "the highest value of bucket " + i);
+            previousHighest = highest;
+        }
+        assertDoesNotThrow(() -> new LatencyHistogram().record(Long.MAX_VALUE));
+    }
+
+    @Test
+    void percentilesWithinTheRelativeError() {
+        Random random = new Random(38);
+        long[] values = new long[100_000];
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < values.length; i++) {
+            // log-normal like latencies between about 100 ns and 10 ms
+            values[i] = (long) Math.exp(4.6 + random.nextDouble() * 11.5);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.percentile(percentile);
+            assertTrue(estimate >= exact && estimate <= exact * (1 + 1.0 / LatencyHistogram.SUB_BUCKETS * 2),
+                    "p" + percentile + ": " + estimate + " for " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.max());
+        assertEquals(values[values.length - 1], histogram.percentile(100));
+    }
+
+    @Test
+    void mergeAddsTheCounts() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) a.record(i);
+        for (int i = 51; i <= 100; i++) b.record(i);
+        a.merge(b);
+        assertEquals(100, a.count());
+        assertEquals(100, a.max());
+        assertEquals(50, a.percentile(50));
+        assertEquals(0, new LatencyHistogram().percentile(99));
+    }
+}
@@ -0,0 +1,122 @@
+package de.hsfd.binary_tree.driver;
+
+import de.hsfd.binary_tree.services.SearchTree;
+import de.hsfd.binary_tree.services.concurrent.LockedTree;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceReplayTest {
+
+    @Test
+    void textAndBinaryTracesAreEquivalent() throws IOException {
+        Path text = Files.createTempFile("trace", ".txt");
+        Path binary = Files.createTempFile("trace", ".bin");
+        try {
+            Files.writeString(text, """
+                    # a comment
+                    insert 5
+                    INSERT -3
+
+                    lookup 5
+                    range -10 10
+                    delete 5
+                    """);
+            Trace trace = Trace.read(text);
+            assertEquals(5, trace.size());
+            assertEquals(Trace.Operation.INSERT, trace.operation(1));
+            assertEquals(-3L, trace.key(1));
+            assertEquals(Trace.Operation.RANGE, trace.operation(3));
+            assertEquals(10L, trace.upperKey(3));
+            assertNull(trace.upperKey(4));
+
+            trace.writeBinary(binary);
+            assertTrue(Files.size(binary) < Files.size(text) * 2);
+            Trace copy = Trace.read(binary);
+            assertEquals(trace.size(), copy.size());
+            for (int i = 0; i < trace.size(); i++) {
+                assertEquals(trace.operation(i), copy.operation(i));
+                assertEquals(trace.key(i), copy.key(i));
+                assertEquals(trace.upperKey(i), copy.upperKey(i));
+            }
+        } finally {
+            Files.delete(text);
+            Files.delete(binary);
+        }
+    }
+
+    @Test
+    void malformedLinesAreReportedWithTheirNumber() throws IOException {
+        Path text = Files.createTempFile("trace", ".txt");
+        try {
+            Files.writeString(text, "insert 1\nrange 4\n");
+            IOException e = assertThrows(IOException.class, () -> Trace.read(text));
+            assertTrue(e.getMessage().startsWith("line 2"), e.getMessage());
+
+            Files.writeString(text, "insert 1\nupsert 4\n");
+            assertThrows(IOException.class, () -> Trace.read(text));
+        } finally {
+            Files.delete(text);
+        }
+    }
+
+    @Test
+    void aCorruptOperationCountIsReported() throws IOException {
+        Path text = Files.createTempFile("trace", ".txt");
+        Path binary = Files.createTempFile("trace", ".bin");
+        try {
+            Files.writeString(text, "insert 1\ndelete 1\n");
+            Trace.read(text).writeBinary(binary);
+            byte[] bytes = Files.readAllBytes(binary);
+            // the count follows the magic bytes and the version
+            for (int count : new int[]{-1, Integer.MAX_VALUE, 3}) {
+                ByteBuffer.wrap(bytes).putInt(5, count);
+                Files.write(binary, bytes);
+                IOException e = assertThrows(IOException.class, () -> Trace.read(binary));
+                assertTrue(e.getMessage().contains(String.valueOf(count)), e.getMessage());
+            }
+            assertThrows(IllegalArgumentException.class,
+                    () -> TraceReplay.main(new String[]{text.toString(), "--threads", "0"}));
+        } finally {
+            Files.delete(text);
+            Files.delete(binary);
+        }
+    }
+
+    @Test
+    void replayAppliesEveryOperation() throws Exception {
+        Path text = Files.createTempFile("trace", ".txt");
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (int i = 0; i < 1000; i++) lines.append("insert ").append(i).append('\n');
+            for (int i = 0; i < 1000; i += 2) lines.append("delete ").append(i).append('\n');
+            lines.append("range 0 9\n");
+            Files.writeString(text, lines);
+            Trace trace = Trace.read(text);
+
+            for (String name : List.of("bst", "avl", "rb", "wavl", "splay", "bplus")) {
+                SearchTree tree = TraceReplay.createTree(name, 1);
+                TraceReplay.Report report = TraceReplay.replay(tree, trace, 1, 0);
+                assertEquals(trace.size(), report.latencies().count(), name);
+                assertEquals(500, tree.size(), name);
+                assertEquals(List.of(1L, 3L, 5L, 7L, 9L), tree.range(0L, 9L), name);
+            }
+
+            // a rate limited replay with several threads: the inserts run before the deletes of the same key
+            // only per thread, so just the total count is checked
+            SearchTree locked = TraceReplay.createTree("avl", 4);
+            assertTrue(locked instanceof LockedTree);
+            TraceReplay.Report report = TraceReplay.replay(locked, trace, 4, 200_000);
+            assertEquals(trace.size(), report.latencies().count());
+            assertTrue(report.throughput() > 0);
+        } finally {
+            Files.delete(text);
+        }
+    }
+}
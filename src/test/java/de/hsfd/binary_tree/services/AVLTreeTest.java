@@ -5,9 +5,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
 
 import static de.hsfd.binary_tree.services.BSTreeTest.isBinarySearchTree;
-import static de.hsfd.binary_tree.services.Node.DEFAULT_HEIGHT;
 import static org.junit.jupiter.api.Assertions.*;
 
 class AVLTreeTest {
@@ -230,6 +233,96 @@ class AVLTreeTest {
         assertEquals(55, avl.getRoot().getData());
     }
 
+    @Test
+    void multisetCountsDuplicatesInOneNode() throws IllegalAccessException {
+        AVLTree tree = new AVLTree(true);
+        for (int i = 0; i < 3; i++) {
+            for (int value : new int[]{40, 20, 60, 10, 30, 50, 70}) assertTrue(tree.add(value));
+        }
+        assertEquals(21, tree.size());
+        assertEquals(3, tree.count(30));
+        assertEquals(0, tree.count(35));
+        assertEquals("10 20 30 40 50 60 70", Node.inorder(tree.getRoot()));
+
+        // the root has two children, so its value and count move into the replacement node
+        assertTrue(tree.remove(40));
+        assertEquals(2, tree.count(40));
+        tree.remove(40);
+        tree.remove(40);
+        assertEquals(0, tree.count(40));
+        assertFalse(tree.remove(40));
+        assertEquals(3, tree.count(50));
+        assertEquals(18, tree.size());
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+        assertTrue(isBalanced(tree.getRoot()));
+    }
+
+    @Test
+    void withoutMultisetDuplicatesAreRejected() {
+        assertTrue(avl.add(10));
+        assertFalse(avl.add(10));
+        assertEquals(1, avl.count(10));
+        assertEquals(1, avl.size());
+    }
+
+    @Test
+    void lazyDeleteCompactsAtTheThreshold() throws IllegalAccessException {
+        for (int i = 0; i < 16; i++) avl.insert(i);
+        avl.enableLazyDelete(0.25);
+
+        for (int i = 0; i < 5; i++) avl.delete(i);
+        // 5 of 16 nodes is above the threshold, so the last deletion has compacted the tree
+        assertEquals(0, avl.tombstones());
+        assertEquals(11, avl.size());
+
+        avl.delete(10);
+        avl.delete(12);
+        assertEquals(2, avl.tombstones());
+        List<Comparable> values = new ArrayList<>();
+        avl.forEach(values::add);
+        assertEquals(List.of(5, 6, 7, 8, 9, 11, 13, 14, 15), values, "The iterator should skip the tombstones.");
+        assertArrayEquals(new Comparable[]{9, 11, 13}, avl.freeze().range(9, 13).toArray());
+
+        avl.disableLazyDelete();
+        assertEquals(0, avl.tombstones());
+        assertEquals("5 6 7 8 9 11 13 14 15", Node.inorder(avl.getRoot()));
+        assertTrue(isBinarySearchTree(avl.getRoot()));
+        assertTrue(isBalanced(avl.getRoot()));
+        assertThrows(IllegalArgumentException.class, () -> avl.enableLazyDelete(1.5));
+    }
+
+    @Test
+    void deleteRangeRebalancesAlongTheBoundaries() throws IllegalAccessException {
+        for (int i = 0; i < 1000; i++) avl.insert(i);
+
+        assertEquals(700, avl.deleteRange(150, 849));
+        assertEquals(300, avl.size());
+        assertEquals(List.of(148, 149, 850, 851), avl.range(148, 851));
+        assertTrue(isBinarySearchTree(avl.getRoot()));
+        assertTrue(isBalanced(avl.getRoot()));
+
+        // the stored balance factors must still be correct, so that the next insertions are balanced
+        for (int i = 200; i < 300; i++) avl.insert(i);
+        assertTrue(isBalanced(avl.getRoot()));
+    }
+
+    @Test
+    void storedBalanceFactorsStayCorrectUnderRandomChurn() throws IllegalAccessException {
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(41);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2000);
+            if (random.nextBoolean()) assertEquals(expected.add(key), avl.add(key));
+            else assertEquals(expected.remove(key), avl.remove(key));
+            if (i % 1000 == 0) {
+                assertTrue(isBalanced(avl.getRoot()), "after operation " + i);
+                assertTrue(isBinarySearchTree(avl.getRoot()));
+            }
+        }
+        assertEquals(expected.size(), avl.size());
+        assertEquals(AVLTree.heightOf(avl.getRoot()), heightOf(avl.getRoot()));
+    }
+
 
     private boolean isBalanced(Node node) {
         if (node == null) {
@@ -240,14 +333,15 @@ class AVLTreeTest {
         int rightHeight = heightOf(node.getRight());
 
         return Math.abs(leftHeight - rightHeight) <= 1 &&
+                node.getBalanceFactor() == leftHeight - rightHeight &&
                 isBalanced(node.getLeft()) &&
                 isBalanced(node.getRight());
     }
 
     private int heightOf(Node node) {
         if (node == null) {
-            return DEFAULT_HEIGHT - 1; // -1 or 0,  depending on your height definition
+            return 0;
         }
-        return node.getHeight();
+        return Math.max(heightOf(node.getLeft()), heightOf(node.getRight())) + 1;
     }
 }
@@ -0,0 +1,81 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.exceptions.TreeException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+class AdaptiveTreeTest {
+
+    @Test
+    void promotesAboveAndDemotesBelowTheThresholds() {
+        AdaptiveTree tree = new AdaptiveTree(AVLTree::new, 8, 4);
+        for (int i = 8; i >= 1; i--) tree.insert(i);
+        assertFalse(tree.isPromoted());
+        assertThrows(TreeException.class, () -> tree.insert(5));
+        tree.insert(9);
+        assertTrue(tree.isPromoted());
+
+        // the hysteresis: back at the promotion threshold, the tree stays a tree
+        tree.delete(9);
+        tree.insert(9);
+        tree.delete(9);
+        assertTrue(tree.isPromoted());
+        for (int i = 8; i >= 5; i--) tree.delete(i);
+        assertTrue(tree.isPromoted());
+        tree.delete(4);
+        assertFalse(tree.isPromoted());
+
+        assertEquals(3, tree.size());
+        assertEquals(List.of(1, 2, 3), tree.range(0, 10));
+        assertThrows(TreeException.class, () -> tree.delete(4));
+    }
+
+    @Test
+    void behavesLikeASetAcrossThePromotions() {
+        AdaptiveTree tree = new AdaptiveTree(RBTree::new);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(40);
+        int promotions = 0;
+        boolean promoted = false;
+        for (int i = 0; i < 20_000; i++) {
+            // the share of insertions drifts, so that the size crosses both thresholds many times
+            int key = random.nextInt(60);
+            boolean insert = random.nextInt(100) < (i / 1000 % 2 == 0 ? 70 : 30);
+            if (insert) assertEquals(expected.add(key), tree.add(key), "add " + key);
+            else assertEquals(expected.remove(key), tree.remove(key), "remove " + key);
+            assertEquals(expected.contains(key) ? key : null, tree.lookup(key));
+            if (tree.isPromoted() && !promoted) promotions++;
+            promoted = tree.isPromoted();
+
+            if (i % 97 == 0) {
+                List<Comparable> values = new ArrayList<>();
+                tree.forEach(values::add);
+                assertEquals(new ArrayList<>(expected), values);
+                assertEquals(new ArrayList<>(expected.subSet(10, true, 30, true)), tree.range(10, 30));
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertTrue(promotions > 1, "The size should cross the thresholds several times, but was promoted " + promotions);
+    }
+
+    @Test
+    void promotedTreeIsBalanced() {
+        AdaptiveTree tree = new AdaptiveTree(BSTree::new, 31, 1);
+        for (int i = 0; i < 32; i++) tree.insert(i);
+        assertTrue(tree.isPromoted());
+        // the values are added from the middle outward, otherwise the BSTree would be a list of height 32
+        assertEquals(6, heightOf(tree.getTree().getRoot()));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveTree(AVLTree::new, 4, 4));
+    }
+
+    private static int heightOf(Node n) {
+        return n == null ? 0 : 1 + Math.max(heightOf(n.getLeft()), heightOf(n.getRight()));
+    }
+}
@@ -0,0 +1,120 @@
+package de.hsfd.binary_tree.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+class AggregatorTest {
+
+    private static final Aggregator<Long> SUM = Aggregator.sum(v -> (Integer) v);
+
+    @Test
+    void rangeSumsMatchUnderRandomChurn() {
+        for (Supplier<BinaryTree> factory : TreeChurn.TREES) {
+            BinaryTree tree = factory.get();
+            String name = tree.getClass().getSimpleName();
+            for (int i = 0; i < 200; i++) tree.add(i * 7 % 200);
+            tree.enableAggregates(SUM);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            for (int i = 0; i < 200; i++) expected.put(i, 1);
+
+            Random random = new Random(42);
+            TreeChurn.churn(tree, expected, random, 20_000, 1000, 50, i -> {
+                if (i % 100 == 0) {
+                    assertCachedAggregates(tree, name);
+                    int lo = random.nextInt(1000);
+                    int hi = lo + random.nextInt(300);
+                    assertEquals(TreeChurn.sum(expected, lo, hi), (long) tree.<Long>aggregate(lo, hi), name + " [" + lo + ", " + hi + "]");
+                }
+            });
+            assertEquals(TreeChurn.sum(expected, Integer.MIN_VALUE, Integer.MAX_VALUE), (long) tree.<Long>aggregate());
+            assertEquals(0L, (long) tree.<Long>aggregate(500, 400));
+
+            TreeChurn.deleteRange(tree, expected, 100, 600);
+            assertCachedAggregates(tree, name);
+            assertEquals(TreeChurn.sum(expected, 0, 999), (long) tree.<Long>aggregate(0, 999), name);
+        }
+    }
+
+    @Test
+    void countsAndTombstonesAreAggregated() {
+        for (BinaryTree tree : List.<BinaryTree>of(new AVLTree(true), new RBTree(true))) {
+            tree.enableAggregates(SUM);
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            Random random = new Random(7);
+            for (int i = 0; i < 5000; i++) {
+                int key = random.nextInt(100);
+                if (random.nextInt(3) > 0) {
+                    tree.add(key);
+                    expected.merge(key, 1, Integer::sum);
+                } else {
+                    assertEquals(expected.containsKey(key), tree.remove(key));
+                    expected.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+                }
+            }
+            assertCachedAggregates(tree, tree.getClass().getSimpleName());
+            assertEquals(TreeChurn.sum(expected, 10, 60), (long) tree.<Long>aggregate(10, 60));
+
+            tree.enableLazyDelete(1);
+            for (int key = 0; key < 50; key++) {
+                while (expected.containsKey(key)) {
+                    tree.remove(key);
+                    expected.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+                }
+            }
+            assertTrue(tree.tombstones() > 0);
+            assertEquals(TreeChurn.sum(expected, 0, 99), (long) tree.<Long>aggregate(0, 99));
+            tree.add(10);
+            expected.merge(10, 1, Integer::sum);
+            assertEquals(TreeChurn.sum(expected, 0, 99), (long) tree.<Long>aggregate(0, 99));
+            tree.compact();
+            assertCachedAggregates(tree, tree.getClass().getSimpleName());
+            assertEquals(TreeChurn.sum(expected, 0, 99), (long) tree.<Long>aggregate(0, 99));
+        }
+    }
+
+    @Test
+    void valuesAreCombinedInAscendingOrder() {
+        // the concatenation is associative, but not commutative
+        Aggregator<String> concat = Aggregator.of("", String::valueOf, String::concat);
+        RBTree tree = new RBTree();
+        for (char c = 'z'; c >= 'a'; c--) tree.add(c);
+        tree.enableAggregates(concat);
+        assertEquals("abcdefghijklmnopqrstuvwxyz", tree.aggregate());
+        assertEquals("defg", tree.aggregate('d', 'g'));
+        tree.remove('e');
+        assertEquals("dfg", tree.aggregate('d', 'g'));
+
+        tree.enableAggregates(Aggregator.max());
+        assertEquals('y', (char) tree.<Character>aggregate('a', 'y'));
+        tree.enableAggregates(Aggregator.min());
+        assertEquals('f', (char) tree.<Character>aggregate('e', 'z'));
+        AVLTree empty = new AVLTree();
+        empty.enableAggregates(Aggregator.min());
+        assertNull(empty.aggregate());
+
+        tree.disableAggregates();
+        assertThrows(IllegalStateException.class, () -> tree.aggregate('a', 'z'));
+    }
+
+    /**
+     * Checks the cached aggregate of every node against the recomputed sum of its subtree.
+     */
+    private static long assertCachedAggregates(Node n, String name) {
+        if (n == null) return 0;
+        long sum = assertCachedAggregates(n.getLeft(), name) + assertCachedAggregates(n.getRight(), name);
+        if (!n.isTombstone()) sum += (long) (Integer) n.getData() * n.getCount();
+        assertEquals(sum, n.getAggregate(), name + " stale aggregate at " + n.getData());
+        return sum;
+    }
+
+    private static void assertCachedAggregates(BinaryTree tree, String name) {
+        assertCachedAggregates(tree.getRoot(), name);
+    }
+}
@@ -0,0 +1,106 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.exceptions.TreeException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BPlusTreeTest {
+
+    @Test
+    void insertAndLookup() {
+        BPlusTree tree = new BPlusTree(4);
+        for (int i = 1; i <= 100; i++) tree.insert(i);
+        assertEquals(100, tree.size());
+        assertEquals(50, tree.lookup(50));
+        assertNull(tree.lookup(101));
+        assertTrue(tree.height() > 1, "A fanout of 4 should need several levels for 100 values.");
+        assertThrows(TreeException.class, () -> tree.insert(50), "Adding the duplicate values should be prohibited.");
+    }
+
+    @Test
+    void deleteFromEmptyAndMissing() {
+        BPlusTree tree = new BPlusTree();
+        assertThrows(TreeException.class, () -> tree.delete(1), "Deleting from an empty tree should throw TreeException.");
+        tree.insert(1);
+        assertThrows(TreeException.class, () -> tree.delete(2), "Deleting a non-existent value should throw TreeException.");
+        tree.delete(1);
+        assertEquals(0, tree.size());
+        assertEquals(0, tree.height());
+        assertNull(tree.lookup(1));
+    }
+
+    @Test
+    void addRemoveContainsWithoutException() {
+        BPlusTree tree = new BPlusTree(3);
+        assertFalse(tree.remove(1));
+        for (int i = 0; i < 10; i++) assertTrue(tree.add(i));
+        assertFalse(tree.add(5), "Adding a duplicate should return false.");
+        assertEquals(10, tree.size());
+        assertTrue(tree.remove(5));
+        assertFalse(tree.remove(5));
+        assertFalse(tree.contains(5));
+        assertTrue(tree.contains(6));
+    }
+
+    @Test
+    void rangeAlongLinkedLeaves() {
+        BPlusTree tree = new BPlusTree(3);
+        for (int i = 0; i < 50; i += 2) tree.insert(i);
+        assertEquals(List.of(10, 12, 14), tree.range(9, 15));
+        assertEquals(List.of(46, 48), tree.range(45, 100));
+        assertTrue(tree.range(15, 9).isEmpty());
+    }
+
+    @Test
+    void swappableBehindSearchTree() {
+        for (SearchTree tree : new SearchTree[]{new RBTree(), new BPlusTree(8)}) {
+            tree.insert(3);
+            tree.insert(1);
+            tree.delete(3);
+            assertNull(tree.lookup(3));
+            assertEquals(1, tree.lookup(1));
+        }
+    }
+
+    @Test
+    void randomizedAgainstTreeSet() {
+        for (int fanout : new int[]{3, 4, 5, 32}) {
+            Random random = new Random(30 + fanout);
+            BPlusTree tree = new BPlusTree(fanout);
+            TreeSet<Integer> oracle = new TreeSet<>();
+            for (int i = 0; i < 20_000; i++) {
+                int value = random.nextInt(3000);
+                if (random.nextBoolean()) {
+                    if (oracle.add(value)) tree.insert(value);
+                } else if (oracle.remove(value)) {
+                    tree.delete(value);
+                }
+            }
+            assertEquals(oracle.size(), tree.size());
+            assertEquals(new ArrayList<>(oracle), tree.range(Integer.MIN_VALUE, Integer.MAX_VALUE));
+            for (int i = 0; i < 3000; i++) {
+                assertEquals(oracle.contains(i) ? i : null, tree.lookup(i));
+            }
+        }
+    }
+
+    @Test
+    void deleteAllInRandomOrder() {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) values.add(i);
+        Collections.shuffle(values, new Random(30));
+        BPlusTree tree = new BPlusTree(4);
+        values.forEach(tree::insert);
+        Collections.shuffle(values, new Random(3));
+        for (int value : values) tree.delete(value);
+        assertEquals(0, tree.size());
+        assertTrue(tree.range(0, 2000).isEmpty());
+    }
+}
@@ -4,6 +4,9 @@ import de.hsfd.binary_tree.services.exceptions.TreeException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+import java.util.TreeSet;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
@@ -122,6 +125,38 @@ class BSTreeTest {
         assertNull(tree.lookup(100), "Lookup should return null for non-existent nodes.");
     }
 
+    @Test
+    public void testAddRemoveContainsWithoutException() {
+        BSTree tree = new BSTree();
+        assertFalse(tree.remove(50), "Removing from an empty tree should return false.");
+        assertTrue(tree.add(50));
+        assertTrue(tree.add(30));
+        assertFalse(tree.add(50), "Adding a duplicate should return false.");
+        assertTrue(tree.contains(30));
+        assertFalse(tree.contains(40));
+        assertFalse(tree.remove(40), "Removing a non-existent value should return false.");
+        assertTrue(tree.remove(30));
+        assertFalse(tree.contains(30));
+        assertEquals("50", Node.inorder(tree.getRoot()));
+    }
+
+    @Test
+    public void testDeleteRange() throws IllegalAccessException {
+        BSTree tree = new BSTree();
+        for (int value : new int[]{50, 30, 70, 20, 40, 60, 80, 35, 45, 65}) tree.insert(value);
+
+        assertEquals(5, tree.deleteRange(35, 60));
+        assertEquals("20 30 65 70 80", Node.inorder(tree.getRoot()));
+        assertEquals(5, tree.size());
+        assertNull(tree.getRoot().getParent());
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+
+        assertEquals(0, tree.deleteRange(31, 64), "Nothing is in range anymore.");
+        assertEquals(0, tree.deleteRange(80, 20), "An empty range should not delete anything.");
+        assertEquals(5, tree.deleteRange(0, 100));
+        assertNull(tree.getRoot());
+    }
+
     BSTree bst;
 
     @BeforeEach
@@ -154,6 +189,67 @@ class BSTreeTest {
         assertTrue(isBinarySearchTree(bst.getRoot()));
     }
 
+    @Test
+    public void testRebalanceSortedInput() throws IllegalAccessException {
+        BSTree tree = new BSTree();
+        // every insertion walks the whole chain, so the chain is kept short enough for the default test run
+        int n = 4000;
+        for (int i = 0; i < n; i++) tree.insert(i); // a chain to the right
+        assertEquals(n, tree.height());
+        assertFalse(tree.rebalanceIfHeightExceeds(n));
+        assertTrue(tree.rebalanceIfHeightExceeds(2));
+
+        assertEquals(12, tree.height(), "4000 nodes fit into 12 levels");
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+        assertNull(tree.getRoot().getParent());
+        assertParentLinks(tree.getRoot());
+        assertEquals(n, tree.size());
+        assertEquals(n / 2, tree.lookup(n / 2));
+        assertFalse(tree.rebalanceIfHeightExceeds(2));
+    }
+
+    @Test
+    public void testRebalanceIsPerfect() throws IllegalAccessException {
+        for (int n : new int[]{0, 1, 2, 3, 7, 8, 100, 1023, 1024}) {
+            BSTree tree = new BSTree();
+            Random random = new Random(n);
+            TreeSet<Integer> values = new TreeSet<>();
+            while (values.size() < n) values.add(random.nextInt(10 * n));
+            for (Integer value : values.descendingSet()) tree.insert(value); // a chain to the left
+            tree.rebalance();
+
+            int expectedHeight = 32 - Integer.numberOfLeadingZeros(n); // floor(log2(n)) + 1
+            assertEquals(expectedHeight, tree.height(), "height for " + n);
+            assertTrue(isBinarySearchTree(tree.getRoot()));
+            assertParentLinks(tree.getRoot());
+            assertEquals(values.stream().map(String::valueOf).reduce((a, b) -> a + " " + b).orElse(""),
+                    Node.inorder(tree.getRoot()));
+        }
+    }
+
+    @Test
+    public void testHeightOfRandomTrees() {
+        Random random = new Random(43);
+        for (int n = 0; n < 200; n++) {
+            BSTree tree = new BSTree();
+            for (int i = 0; i < n; i++) tree.add(random.nextInt(1000));
+            assertEquals(heightOf(tree.getRoot()), tree.height(), "height for " + n);
+        }
+    }
+
+    private static int heightOf(Node node) {
+        return node == null ? 0 : 1 + Math.max(heightOf(node.getLeft()), heightOf(node.getRight()));
+    }
+
+    private static void assertParentLinks(Node node) {
+        if (node == null) return;
+        for (Node child : new Node[]{node.getLeft(), node.getRight()}) {
+            if (child == null) continue;
+            assertSame(node, child.getParent());
+            assertParentLinks(child);
+        }
+    }
+
     public static boolean isBinarySearchTree(Node node) throws IllegalAccessException {
         return isBinarySearchTree(node, null, null);
     }
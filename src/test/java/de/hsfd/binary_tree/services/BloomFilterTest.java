@@ -0,0 +1,77 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.wrapper.IntComparable;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void noFalseNegativesAndTheTargetedRate() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) filter.add(i);
+        for (int i = 0; i < 100_000; i++) assertTrue(filter.mightContain(i), "false negative for " + i);
+
+        int falsePositives = 0;
+        for (int i = 100_000; i < 200_000; i++) if (filter.mightContain(i)) falsePositives++;
+        // the blocked layout costs a bit of accuracy, so allow twice the targeted rate
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives");
+        assertEquals(filter.expectedFalsePositiveRate(), 0.01, 0.01);
+        // about 9.6 bits per value
+        assertTrue(filter.memoryBytes() < 100_000 * 10 / 8 + 64, filter.memoryBytes() + " bytes");
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1));
+    }
+
+    @Test
+    void treesRejectAbsentValuesWithTheFilter() {
+        for (Supplier<BinaryTree> factory : TreeChurn.TREES) {
+            BinaryTree tree = factory.get();
+            for (int i = 0; i < 1000; i += 2) tree.add(new IntComparable(i));
+            tree.enableBloomFilter(0.01);
+            // inserted after the filter has been built, so the filter has to grow
+            for (int i = 1000; i < 5000; i += 2) tree.add(new IntComparable(i));
+
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(i % 2 == 0, tree.contains(new IntComparable(i)), tree.getClass().getSimpleName() + " " + i);
+            }
+            BloomFilter filter = tree.getBloomFilter();
+            assertTrue(filter.negatives() > 2300, "most of the 2500 misses should be filtered: " + filter);
+            assertEquals(2500, filter.negatives() + filter.falsePositives());
+            assertFalse(tree.remove(new IntComparable(1)));
+        }
+    }
+
+    @Test
+    void deletionsDrainTheFilterWithARebuild() {
+        RBTree tree = new RBTree();
+        tree.enableBloomFilter(0.01);
+        for (int i = 0; i < 10_000; i++) tree.add(i);
+        BloomFilter before = tree.getBloomFilter();
+        for (int i = 0; i < 10_000; i += 3) tree.remove(i);
+        for (int i = 1; i < 10_000; i += 3) tree.remove(i);
+        assertTrue(before != tree.getBloomFilter(), "the filter should have been rebuilt");
+
+        for (int i = 0; i < 10_000; i++) assertEquals(i % 3 == 2, tree.contains(i));
+        // only the values deleted after the automatic rebuild still pass, at most half of the filter
+        BloomFilter filter = tree.getBloomFilter();
+        assertTrue(filter.falsePositives() <= filter.insertions() / 2 + 100, filter.toString());
+
+        tree.rebuildBloomFilter();
+        for (int i = 0; i < 10_000; i++) assertEquals(i % 3 == 2, tree.contains(i));
+        assertTrue(tree.getBloomFilter().falsePositives() < 100, "the rebuild should drain the deleted values: "
+                + tree.getBloomFilter());
+
+        // a revived tombstone must pass the filter again
+        tree.enableLazyDelete(1);
+        tree.remove(2);
+        tree.rebuildBloomFilter();
+        tree.add(2);
+        assertEquals(2, tree.lookup(2));
+        tree.disableBloomFilter();
+        assertNull(tree.getBloomFilter());
+        assertEquals(2, tree.lookup(2));
+    }
+}
@@ -0,0 +1,76 @@
+package de.hsfd.binary_tree.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeLogTest {
+
+    @Test
+    void everyFrameMatchesTheTreeAtItsTime() {
+        for (Supplier<BinaryTree> factory : TreeChurn.TREES) {
+            BinaryTree tree = factory.get();
+            String name = tree.getClass().getSimpleName();
+            Random random = new Random(42);
+            TreeMap<Integer, Integer> values = new TreeMap<>();
+            TreeChurn.churn(tree, values, random, 50, 200, 100, i -> {});
+            ChangeLog log = tree.recordChanges();
+            assertSame(log, tree.recordChanges());
+
+            List<String> expected = new ArrayList<>();
+            expected.add(tree.toDOT());
+            TreeChurn.churn(tree, values, random, 3000, 200, 55, i -> {
+                if (random.nextInt(50) == 0) {
+                    int lo = random.nextInt(200);
+                    TreeChurn.deleteRange(tree, values, lo, lo + 10);
+                }
+                if (random.nextInt(100) == 0) {
+                    if (tree.isLazyDelete()) tree.disableLazyDelete();
+                    else tree.enableLazyDelete(0.3);
+                }
+                assertEquals(expected.size(), log.frame());
+                expected.add(tree.toDOT());
+            });
+            TreeChurn.assertValues(tree, values);
+
+            assertTrue(log.keyframes() > 1, name + " " + log);
+            // in random order, so that the frames are rendered from different keyframes
+            for (int i = 0; i < 500; i++) {
+                int frame = random.nextInt(expected.size());
+                assertEquals(expected.get(frame), log.toDOT(frame), name + " frame " + frame);
+            }
+            assertEquals(expected.getLast(), log.toDOT(log.frames() - 1), name);
+        }
+    }
+
+    @Test
+    void theLogStaysReadableAfterTheRecording() throws Exception {
+        RBTree tree = new RBTree();
+        ChangeLog log = tree.recordChanges();
+        assertNull(log.render(0));
+        for (int i = 0; i < 100; i++) {
+            tree.add(i);
+            log.frame();
+        }
+        String last = tree.toDOT();
+        tree.stopRecording();
+        tree.add(1000);
+        tree.remove(50);
+        assertThrows(IllegalStateException.class, log::frame);
+        assertEquals(last, log.toDOT(100));
+        assertEquals(Node.COLOR.BLACK, log.render(1).getColor());
+        assertEquals(0, log.render(1).getData());
+        assertThrows(IndexOutOfBoundsException.class, () -> log.render(101));
+
+        // a new recording starts with the current tree
+        ChangeLog next = tree.recordChanges();
+        assertNotEquals(log, next);
+        assertEquals(tree.toDOT(), next.toDOT(0));
+    }
+}
@@ -0,0 +1,226 @@
+package de.hsfd.binary_tree.services;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A long-running randomized suite, which drives the trees and a {@link TreeMap} as the oracle with the same
+ * mixed operations. The contents, the height bounds and the AVL and red-black invariants are verified
+ * periodically, and the throughput is compared with the baseline in {@code performance-baseline.properties}.
+ * <p>
+ * It is excluded from {@code gradle test} and runs with {@code gradle performanceTest}. Configuration with system
+ * properties: {@code performance.operations} (default 2000000), {@code performance.maxRegressionPercent}
+ * (default 20) and {@code performance.updateBaseline=true}, which records the measured throughput as the new
+ * baseline in {@code src/test/resources} instead of comparing it. The baseline depends on the machine, so it is not
+ * part of the repository: it is recorded on the host that runs the release build and stays there. Without a
+ * baseline, the suite only reports the throughput.
+ * </p>
+ */
+@Tag("performance")
+@SuppressWarnings({"rawtypes", "unchecked"})
+class DifferentialPerformanceTest {
+
+    private static final String BASELINE = "performance-baseline.properties";
+    private static final int OPERATIONS = Integer.getInteger("performance.operations", 2_000_000);
+    private static final int MAX_REGRESSION_PERCENT = Integer.getInteger("performance.maxRegressionPercent", 20);
+    private static final int KEY_SPACE = 200_000;
+    private static final int CHECK_INTERVAL = 250_000;
+
+    @Test
+    void bsTree() throws IOException {
+        run("BSTree", BSTree::new, null);
+    }
+
+    @Test
+    void avlTree() throws IOException {
+        run("AVLTree", AVLTree::new, root -> {
+            // the height of an AVL tree is at most 1.44 * log2(n + 2)
+            assertAVL(root);
+            return 1.4405 * log2(sizeOf(root) + 2);
+        });
+    }
+
+    @Test
+    void rbTree() throws IOException {
+        run("RBTree", RBTree::new, root -> {
+            // the height of a red-black tree is at most 2 * log2(n + 1)
+            assertNotEquals(Node.COLOR.RED, root == null ? null : root.getColor(), "The root must be black.");
+            blackHeightOf(root);
+            return 2 * log2(sizeOf(root) + 1);
+        });
+    }
+
+    /**
+     * Checks the invariants of the tree and returns its maximal height.
+     */
+    private interface InvariantCheck {
+        double check(Node root);
+    }
+
+    private static void run(String name, Supplier<BinaryTree> factory, InvariantCheck invariants) throws IOException {
+        BinaryTree tree = factory.get();
+        TreeMap<Integer, Integer> oracle = new TreeMap<>();
+        Random random = new Random(37);
+        long time = 0;
+
+        for (int done = 0; done < OPERATIONS; done += CHECK_INTERVAL) {
+            // the last block is shorter, so that exactly the configured number of operations is measured
+            int block = Math.min(CHECK_INTERVAL, OPERATIONS - done);
+            long start = System.nanoTime();
+            for (int i = 0; i < block; i++) {
+                Integer key = random.nextInt(KEY_SPACE);
+                int operation = random.nextInt(100);
+                // 40% insertions, 30% deletions, 29% lookups and 1% range queries
+                if (operation < 40) {
+                    assertEquals(oracle.put(key, key) == null, tree.add(key), "add " + key);
+                } else if (operation < 70) {
+                    assertEquals(oracle.remove(key) != null, tree.remove(key), "remove " + key);
+                } else if (operation < 99) {
+                    assertEquals(oracle.get(key), tree.lookup(key), "lookup " + key);
+                } else {
+                    Integer hi = key + random.nextInt(100);
+                    assertEquals(new ArrayList<>(oracle.subMap(key, true, hi, true).keySet()), tree.range(key, hi),
+                            "range " + key + " " + hi);
+                }
+            }
+            time += System.nanoTime() - start;
+            verify(tree, oracle, invariants);
+        }
+
+        double opsPerMs = OPERATIONS / (time / 1e6);
+        System.out.printf("%s: %,.0f ops/ms%n", name, opsPerMs);
+        compareWithBaseline(name, opsPerMs);
+    }
+
+    private static void verify(BinaryTree tree, TreeMap<Integer, Integer> oracle, InvariantCheck invariants) {
+        assertEquals(oracle.size(), tree.size());
+        Iterator<Comparable> values = tree.iterator();
+        for (Integer key : oracle.keySet()) assertEquals(key, values.next());
+        assertFalse(values.hasNext());
+        assertNull(tree.getRoot() == null ? null : tree.getRoot().getParent());
+        assertOrderedAndLinked(tree.getRoot());
+
+        if (invariants != null) {
+            double maxHeight = invariants.check(tree.getRoot());
+            int height = heightOf(tree.getRoot());
+            assertTrue(height <= maxHeight, "The height " + height + " exceeds the bound " + maxHeight);
+        }
+    }
+
+    private static void compareWithBaseline(String name, double opsPerMs) throws IOException {
+        String key = name + ".opsPerMs";
+        Properties baseline = new Properties();
+        try (InputStream in = DifferentialPerformanceTest.class.getResourceAsStream("/" + BASELINE)) {
+            if (in != null) baseline.load(in);
+        }
+
+        if (Boolean.getBoolean("performance.updateBaseline")) {
+            Path file = Path.of("src", "test", "resources", BASELINE);
+            Properties stored = new Properties();
+            if (Files.exists(file)) {
+                try (Reader reader = Files.newBufferedReader(file)) {
+                    stored.load(reader);
+                }
+            }
+            stored.setProperty(key, String.valueOf(Math.round(opsPerMs)));
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                stored.store(writer, "Throughput baseline of DifferentialPerformanceTest in operations per millisecond");
+            }
+            return;
+        }
+
+        String expected = baseline.getProperty(key);
+        if (expected == null) {
+            System.out.printf("%s: no baseline, run with -Dperformance.updateBaseline=true to record one%n", name);
+            return;
+        }
+        double minimum = Double.parseDouble(expected) * (100 - MAX_REGRESSION_PERCENT) / 100;
+        assertTrue(opsPerMs >= minimum, String.format("%s regressed: %,.0f ops/ms is more than %d%% below the baseline of %s ops/ms",
+                name, opsPerMs, MAX_REGRESSION_PERCENT, expected));
+    }
+
+    /**
+     * Checks the order of the values and the parent links with an iterative walk, so that a degenerated tree does
+     * not overflow the stack.
+     */
+    private static void assertOrderedAndLinked(Node root) {
+        List<Node> stack = new ArrayList<>();
+        if (root != null) stack.add(root);
+        while (!stack.isEmpty()) {
+            Node n = stack.removeLast();
+            for (Node child : new Node[]{n.getLeft(), n.getRight()}) {
+                if (child == null) continue;
+                assertSame(n, child.getParent(), "broken parent link at " + child.getData());
+                stack.add(child);
+            }
+            if (n.getLeft() != null) assertTrue(n.getLeft().getData().compareTo(n.getData()) < 0);
+            if (n.getRight() != null) assertTrue(n.getRight().getData().compareTo(n.getData()) > 0);
+        }
+    }
+
+    /**
+     * @return the computed height, while the stored balance factors are checked on the way
+     */
+    private static int assertAVL(Node n) {
+        if (n == null) return 0;
+        int left = assertAVL(n.getLeft());
+        int right = assertAVL(n.getRight());
+        assertTrue(Math.abs(left - right) <= 1, "unbalanced at " + n.getData());
+        assertEquals(left - right, n.getBalanceFactor(), "wrong stored balance factor at " + n.getData());
+        return Math.max(left, right) + 1;
+    }
+
+    /**
+     * @return the black height, while the red-black properties are checked on the way
+     */
+    private static int blackHeightOf(Node n) {
+        if (n == null) return 1;
+        if (n.getColor() == Node.COLOR.RED) {
+            for (Node child : new Node[]{n.getLeft(), n.getRight()}) {
+                assertFalse(child != null && child.getColor() == Node.COLOR.RED, "red node with a red child at " + n.getData());
+            }
+        }
+        int left = blackHeightOf(n.getLeft());
+        assertEquals(left, blackHeightOf(n.getRight()), "different black heights at " + n.getData());
+        return left + (n.getColor() == Node.COLOR.BLACK ? 1 : 0);
+    }
+
+    private static int heightOf(Node root) {
+        int height = 0;
+        List<Map.Entry<Node, Integer>> stack = new ArrayList<>();
+        if (root != null) stack.add(Map.entry(root, 1));
+        while (!stack.isEmpty()) {
+            Map.Entry<Node, Integer> entry = stack.removeLast();
+            height = Math.max(height, entry.getValue());
+            if (entry.getKey().getLeft() != null) stack.add(Map.entry(entry.getKey().getLeft(), entry.getValue() + 1));
+            if (entry.getKey().getRight() != null) stack.add(Map.entry(entry.getKey().getRight(), entry.getValue() + 1));
+        }
+        return height;
+    }
+
+    private static int sizeOf(Node n) {
+        return n == null ? 0 : 1 + sizeOf(n.getLeft()) + sizeOf(n.getRight());
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / Math.log(2);
+    }
+}
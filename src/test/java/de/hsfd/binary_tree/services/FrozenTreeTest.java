@@ -0,0 +1,85 @@
+package de.hsfd.binary_tree.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+class FrozenTreeTest {
+
+    @Test
+    void freezeEmptyTree() {
+        FrozenTree frozen = new RBTree().freeze();
+        assertEquals(0, frozen.size());
+        assertFalse(frozen.contains(10));
+        assertNull(frozen.floor(10));
+        assertNull(frozen.ceiling(10));
+        assertTrue(frozen.range(0, 100).isEmpty());
+    }
+
+    @Test
+    void containsFloorCeiling() {
+        RBTree tree = new RBTree();
+        for (int i = 10; i <= 100; i += 10) tree.insert(i);
+        FrozenTree frozen = tree.freeze();
+
+        assertEquals(10, frozen.size());
+        assertTrue(frozen.contains(50));
+        assertFalse(frozen.contains(55));
+        assertEquals(50, frozen.floor(55));
+        assertEquals(60, frozen.ceiling(55));
+        assertEquals(50, frozen.floor(50));
+        assertEquals(50, frozen.ceiling(50));
+        assertNull(frozen.floor(5), "There is no key smaller than the smallest key.");
+        assertNull(frozen.ceiling(105), "There is no key bigger than the biggest key.");
+        assertEquals(100, frozen.floor(1000));
+        assertEquals(10, frozen.ceiling(-1));
+    }
+
+    @Test
+    void rangeScan() {
+        AVLTree tree = new AVLTree();
+        for (int i = 1; i <= 20; i++) tree.insert(i);
+        FrozenTree frozen = tree.freeze();
+
+        assertEquals(List.of(5, 6, 7, 8), frozen.range(5, 8));
+        assertEquals(List.of(19, 20), frozen.range(19, 50));
+        assertTrue(frozen.range(8, 5).isEmpty(), "An inverted range should be empty.");
+    }
+
+    @Test
+    void freezeIsNotAffectedByLaterChanges() {
+        BSTree tree = new BSTree();
+        tree.insert(2);
+        tree.insert(1);
+        FrozenTree frozen = tree.freeze();
+        tree.insert(3);
+        tree.delete(1);
+
+        assertTrue(frozen.contains(1));
+        assertFalse(frozen.contains(3));
+    }
+
+    @Test
+    void randomizedAgainstTreeSet() {
+        Random random = new Random(26);
+        RBTree tree = new RBTree();
+        TreeSet<Integer> oracle = new TreeSet<>();
+        for (int i = 0; i < 2000; i++) {
+            int value = random.nextInt(10_000);
+            if (oracle.add(value)) tree.insert(value);
+        }
+        FrozenTree frozen = tree.freeze();
+        assertEquals(oracle.size(), frozen.size());
+        for (int i = -10; i < 10_010; i++) {
+            assertEquals(oracle.contains(i), frozen.contains(i));
+            assertEquals(oracle.floor(i), frozen.floor(i));
+            assertEquals(oracle.ceiling(i), frozen.ceiling(i));
+        }
+        assertEquals(List.copyOf(oracle.subSet(1234, true, 5678, true)), frozen.range(1234, 5678));
+    }
+}
@@ -0,0 +1,74 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.IntervalTree.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    @Test
+    void overlapAndStabbingQueriesMatchAScan() {
+        IntervalTree tree = new IntervalTree();
+        TreeSet<Interval> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long start = random.nextInt(100_000);
+            Interval interval = new Interval(start, start + random.nextInt(random.nextInt(10) == 0 ? 5000 : 50));
+            if (random.nextInt(4) > 0) {
+                assertEquals(expected.add(interval), tree.add(interval));
+            } else if (!expected.isEmpty()) {
+                Interval present = expected.ceiling(interval) != null ? expected.ceiling(interval) : expected.first();
+                assertTrue(tree.remove(present.start(), present.end()));
+                expected.remove(present);
+            }
+
+            if (i % 200 == 0) {
+                long lo = random.nextInt(100_000);
+                long hi = lo + random.nextInt(100);
+                List<Interval> scan = scan(expected, lo, hi);
+                assertEquals(scan, tree.overlapping(lo, hi), "[" + lo + ", " + hi + "]");
+                assertEquals(scan(expected, lo, lo), tree.stabbing(lo));
+                Interval any = tree.anyOverlapping(lo, hi);
+                if (scan.isEmpty()) assertNull(any);
+                else assertTrue(scan.contains(any), any + " does not overlap");
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected), tree.overlapping(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertTrue(tree.overlapping(10, 5).isEmpty());
+    }
+
+    @Test
+    void boundariesAreInclusive() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(10, 20);
+        tree.add(30, 30);
+        tree.add(5, 40);
+        assertEquals(List.of(new Interval(5, 40), new Interval(10, 20)), tree.stabbing(20));
+        assertEquals(List.of(new Interval(5, 40), new Interval(30, 30)), tree.overlapping(21, 30));
+        assertEquals(List.of(), tree.stabbing(41));
+        assertNull(tree.anyOverlapping(41, 100));
+
+        tree.enableLazyDelete(1);
+        tree.remove(5, 40);
+        assertEquals(List.of(new Interval(30, 30)), tree.overlapping(21, 30));
+        assertEquals(new Interval(30, 30), tree.anyOverlapping(25, 35));
+        assertThrows(IllegalArgumentException.class, () -> new Interval(2, 1));
+        // the biggest ends cannot be replaced or disabled
+        assertFalse(tree.disableAggregates());
+        assertFalse(tree.enableAggregates(Aggregator.min()));
+        assertEquals(new Interval(30, 30), tree.anyOverlapping(25, 35));
+    }
+
+    private static List<Interval> scan(TreeSet<Interval> intervals, long lo, long hi) {
+        List<Interval> result = new ArrayList<>();
+        for (Interval interval : intervals) if (interval.overlaps(lo, hi)) result.add(interval);
+        return result;
+    }
+}
@@ -0,0 +1,219 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.concurrent.ShardedTree;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+class NodePoolTest {
+
+    @Test
+    void recycledNodesKeepTheTreesCorrect() {
+        for (Supplier<BinaryTree> factory : TreeChurn.TREES_AND_MULTISETS) {
+            BinaryTree tree = factory.get();
+            String name = tree.getClass().getSimpleName();
+            NodePool pool = new NodePool(64);
+            tree.enableNodePool(pool);
+            tree.enableAggregates(Aggregator.sum(v -> (Integer) v));
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+
+            TreeChurn.churn(tree, expected, new Random(42), 20_000, 500, 60, i -> {
+                if (i % 1000 == 0) assertTree(tree, expected);
+            });
+            TreeChurn.deleteRange(tree, expected, 100, 300);
+            for (int i = 0; i < 500; i++) {
+                if (tree.add(i) || tree.isMultiset()) expected.merge(i, 1, Integer::sum);
+            }
+            assertTree(tree, expected);
+
+            assertTrue(pool.reused() > 1000, name + " " + pool);
+            assertTrue(pool.size() <= pool.capacity(), name + " " + pool);
+        }
+    }
+
+    @Test
+    void noNodeOfTheTreeIsInThePool() {
+        RBTree tree = new RBTree();
+        NodePool pool = new NodePool();
+        tree.enableNodePool(pool);
+        for (int i = 0; i < 1000; i++) tree.add(i);
+        for (int i = 0; i < 1000; i += 2) tree.remove(i);
+        // the duplicates give their unused node back
+        for (int i = 1; i < 1000; i += 2) assertFalse(tree.add(i));
+        // the removed nodes and the nullNode of the deletions, which is created once and then reused
+        assertEquals(501, pool.size());
+        assertEquals(1001, pool.created());
+
+        IdentityHashMap<Node, Boolean> nodes = new IdentityHashMap<>();
+        collect(tree.getRoot(), nodes);
+        for (int i = 0; i < 501; i++) {
+            Node n = pool.acquire(i, Node.COLOR.RED);
+            // neither a node of the tree, nor a node that has been handed out twice
+            assertFalse(nodes.containsKey(n));
+            assertNull(n.getParent());
+            assertTrue(n.isLeaf());
+            assertEquals(1, n.getCount());
+            assertNull(n.getAggregate());
+            nodes.put(n, true);
+        }
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    void theCapacityBoundsThePool() {
+        AVLTree tree = new AVLTree();
+        NodePool pool = new NodePool(10);
+        tree.enableNodePool(pool);
+        for (int i = 0; i < 100; i++) tree.add(i);
+        for (int i = 0; i < 100; i++) tree.remove(i);
+        assertNull(tree.getRoot());
+        // 100 nodes and the nullNode of the first deletion
+        assertEquals(101, pool.created());
+        assertEquals(10, pool.size());
+        assertEquals(91, pool.dropped());
+
+        tree.disableNodePool();
+        assertNull(tree.getNodePool());
+        tree.add(1);
+        assertEquals(10, pool.size());
+
+        assertThrows(IllegalArgumentException.class, () -> new NodePool(-1));
+        NodePool none = new NodePool(0);
+        tree.enableNodePool(none);
+        tree.remove(1);
+        assertEquals(1, none.dropped());
+    }
+
+    @Test
+    void threadLocalPoolsAreSharedByTheShards() throws InterruptedException {
+        NodePool pool = NodePool.threadLocal(256);
+        ShardedTree tree = new ShardedTree(() -> {
+            RBTree shard = new RBTree();
+            shard.enableNodePool(pool);
+            return shard;
+        }, 4);
+
+        int threads = 4;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 100_000;
+            workers.add(new Thread(() -> {
+                // a sliding window of 100 values per thread
+                for (int i = 0; i < 10_000; i++) {
+                    assertTrue(tree.add(offset + i));
+                    if (i >= 100) assertTrue(tree.remove(offset + i - 100));
+                }
+            }));
+        }
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+
+        assertEquals(threads * 100, tree.size());
+        for (int t = 0; t < threads; t++) {
+            for (int i = 9900; i < 10_000; i++) assertNotNull(tree.lookup(t * 100_000 + i));
+        }
+        // almost every insertion of a thread takes the node that the same thread has removed before
+        assertTrue(pool.reused() > threads * 9000, pool.toString());
+        assertTrue(pool.created() < threads * 1000, pool.toString());
+    }
+
+    @Test
+    void theFreeListsOfEndedThreadsAreReleased() throws InterruptedException {
+        NodePool pool = NodePool.threadLocal(64);
+        RBTree tree = new RBTree();
+        tree.enableNodePool(pool);
+        for (int t = 0; t < 100; t++) {
+            int offset = t * 1000;
+            // short-lived threads, one after the other, each leaves a full free list behind
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100; i++) tree.add(offset + i);
+                for (int i = 0; i < 100; i++) tree.remove(offset + i);
+            });
+            thread.start();
+            thread.join();
+        }
+        // the counters keep the operations of the ended threads
+        // (the nullNodes of the deletions are acquired as well)
+        assertTrue(pool.created() + pool.reused() >= 100 * 100, pool.toString());
+        assertTrue(pool.created() >= 100 * 100, pool.toString());
+        assertTrue(pool.dropped() > 0);
+
+        for (int i = 0; i < 50 && pool.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    void aDroppedThreadLocalPoolIsReleasedOnALiveThread() throws InterruptedException {
+        NodePool pool = NodePool.threadLocal(64);
+        RBTree tree = new RBTree();
+        tree.enableNodePool(pool);
+        for (int i = 0; i < 100; i++) tree.add(i);
+        // the node of 0 is removed first, so the free list keeps it
+        Node removed = tree.getRoot();
+        while (removed.getLeft() != null) removed = removed.getLeft();
+        for (int i = 0; i < 100; i++) tree.remove(i);
+        assertTrue(pool.size() > 0);
+        WeakReference<NodePool> dropped = new WeakReference<>(pool);
+        WeakReference<Node> free = new WeakReference<>(removed);
+        pool = null;
+        tree = null;
+        removed = null;
+
+        // the current thread stays alive, only its ThreadLocal entry may keep the pool
+        for (int i = 0; i < 50 && dropped.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(dropped.get(), "the free list of the thread keeps the pool alive");
+
+        // enough new entries let the map of the thread grow, which clears all stale entries
+        List<ThreadLocal<Integer>> locals = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ThreadLocal<Integer> local = new ThreadLocal<>();
+            local.set(i);
+            locals.add(local);
+        }
+        locals.forEach(ThreadLocal::remove);
+        for (int i = 0; i < 50 && free.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(free.get(), "the free list of the dropped pool is still reachable");
+    }
+
+    private static void assertTree(BinaryTree tree, TreeMap<Integer, Integer> expected) {
+        String name = tree.getClass().getSimpleName();
+        TreeChurn.assertValues(tree, expected);
+        assertEquals(TreeChurn.sum(expected, Integer.MIN_VALUE, Integer.MAX_VALUE), (long) tree.<Long>aggregate(), name);
+        assertLinked(tree.getRoot(), name);
+    }
+
+    private static void assertLinked(Node n, String name) {
+        if (n == null) return;
+        assertNotNull(n.getData(), name + ": a nullNode is left in the tree");
+        for (Node child : new Node[]{n.getLeft(), n.getRight()}) {
+            if (child == null) continue;
+            assertSame(n, child.getParent(), name);
+            assertLinked(child, name);
+        }
+    }
+
+    private static void collect(Node n, IdentityHashMap<Node, Boolean> nodes) {
+        if (n == null) return;
+        nodes.put(n, true);
+        collect(n.getLeft(), nodes);
+        collect(n.getRight(), nodes);
+    }
+}
@@ -6,6 +6,8 @@ import de.hsfd.binary_tree.services.exceptions.TreeException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 public class RBTreeTest {
 
     @Test
@@ -307,6 +309,95 @@ public class RBTreeTest {
         assertEquals(19, rbt.getRoot().getLeft().getData());
     }
 
+    @Test
+    public void testMultisetCountsDuplicates() {
+        RBTree tree = new RBTree(true);
+        for (int value : new int[]{41, 38, 21, 12, 19, 8, 21, 21, 8}) {
+            assertTrue(tree.add(value));
+        }
+        assertEquals(9, tree.size());
+        assertEquals(3, tree.count(21));
+        assertEquals(2, tree.count(8));
+        assertDoesNotThrow(() -> tree.insert(41), "In multiset mode, a duplicate is not an error.");
+        assertTrue(checkRBTProperties(tree.getRoot()));
+
+        tree.delete(21);
+        assertEquals(2, tree.count(21));
+        tree.delete(38);
+        tree.delete(21);
+        tree.delete(21);
+        assertFalse(tree.contains(21));
+        assertEquals(2, tree.count(41));
+        assertEquals(6, tree.size());
+        assertTrue(checkRBTProperties(tree.getRoot()));
+    }
+
+    @Test
+    public void testLazyDeleteKeepsTheShapeUntilCompaction() {
+        RBTree tree = new RBTree();
+        for (int i = 1; i <= 20; i++) tree.insert(i);
+        tree.enableLazyDelete(1); // never compact automatically
+        String shape = Node.preorder(tree.getRoot());
+
+        for (int i = 2; i <= 20; i += 2) assertTrue(tree.remove(i));
+        assertFalse(tree.remove(4), "A tombstone should not be deleted twice.");
+        assertEquals(shape, Node.preorder(tree.getRoot()), "A lazy deletion should not change the structure.");
+        assertEquals(10, tree.tombstones());
+        assertEquals(10, tree.size());
+        assertFalse(tree.contains(4));
+        assertNull(tree.lookup(4));
+        assertTrue(tree.contains(5));
+
+        assertTrue(tree.add(4), "Adding a deleted value should revive the tombstone.");
+        assertEquals(9, tree.tombstones());
+
+        assertEquals(9, tree.compact());
+        assertEquals(0, tree.tombstones());
+        assertEquals("1 3 4 5 7 9 11 13 15 17 19", Node.inorder(tree.getRoot()));
+        assertTrue(checkRBTProperties(tree.getRoot()));
+    }
+
+    @Test
+    public void testDeleteRange() {
+        RBTree tree = new RBTree();
+        for (int i = 1; i <= 500; i++) tree.insert(i);
+
+        assertEquals(200, tree.deleteRange(101, 300));
+        assertEquals(0, tree.deleteRange(150, 250));
+        assertEquals(300, tree.size());
+        assertTrue(tree.contains(100));
+        assertFalse(tree.contains(101));
+        assertTrue(tree.contains(301));
+        assertTrue(checkRBTProperties(tree.getRoot()));
+
+        assertEquals(100, tree.deleteRange(0, 100), "The range may start before the smallest value.");
+        assertEquals(List.of(301, 302), tree.range(0, 302));
+        assertTrue(checkRBTProperties(tree.getRoot()));
+    }
+
+    @Test
+    public void testDeleteBlackLeafRunsTheFixup() {
+        for (int value : new int[]{0, 19, 11, 13}) my_insert(value);
+        rbt.delete(0);
+
+        // without the fixup, the path 11 -> 19 would have one more black node than the path on the left
+        assertEquals(13, rbt.getRoot().getData());
+        assertEquals(Node.COLOR.BLACK, rbt.getRoot().getLeft().getColor());
+        assertEquals(Node.COLOR.BLACK, rbt.getRoot().getRight().getColor());
+    }
+
+    @Test
+    public void testDeleteWithSuccessorDeeperInTheRightSubtree() {
+        for (int value : new int[]{19, 6, 2, 8, 7, 16}) my_insert(value);
+        rbt.delete(6); // the successor 7 is the left child of 8 and black
+
+        assertEquals("7 2 16 8 19", Node.preorder(rbt.getRoot()));
+        assertEquals(Node.COLOR.BLACK, rbt.getRoot().getLeft().getColor());
+        assertEquals(Node.COLOR.RED, rbt.getRoot().getRight().getColor());
+        assertEquals(Node.COLOR.BLACK, rbt.getRoot().getRight().getLeft().getColor());
+        assertEquals(Node.COLOR.BLACK, rbt.getRoot().getRight().getRight().getColor());
+    }
+
     public boolean checkRBTProperties(Node root) {
         if (root == null) {
             return true; // An empty tree is a valid RBT
@@ -0,0 +1,73 @@
+package de.hsfd.binary_tree.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static de.hsfd.binary_tree.services.BSTreeTest.isBinarySearchTree;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+class ScapegoatTreeTest {
+
+    @Test
+    void sortedInputStaysShallow() throws IllegalAccessException {
+        ScapegoatTree tree = new ScapegoatTree();
+        int n = 100_000;
+        for (int i = 0; i < n; i++) assertTrue(tree.add(i));
+        assertFalse(tree.add(n / 2));
+        assertEquals(n, tree.size());
+        // the depth bound log_(3/2)(n) plus the root
+        assertTrue(heightOf(tree.getRoot()) <= Math.floor(Math.log(n) / Math.log(1.5)) + 1,
+                "height " + heightOf(tree.getRoot()));
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+        assertEquals(n - 1, tree.lookup(n - 1));
+    }
+
+    @Test
+    void deletionsRebuildTheWholeTree() throws IllegalAccessException {
+        ScapegoatTree tree = new ScapegoatTree(0.6);
+        for (int i = 0; i < 1024; i++) tree.insert(i);
+        // deleting from one side only would leave a one-sided tree behind
+        for (int i = 0; i < 1000; i++) tree.delete(i);
+        assertEquals(24, tree.size());
+        assertTrue(heightOf(tree.getRoot()) <= 6, "height " + heightOf(tree.getRoot()));
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+        assertNull(tree.getRoot().getParent());
+        assertThrows(IllegalArgumentException.class, () -> new ScapegoatTree(0.5));
+    }
+
+    @Test
+    void behavesLikeASetUnderRandomChurn() throws IllegalAccessException {
+        ScapegoatTree tree = new ScapegoatTree();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(5000);
+            int operation = random.nextInt(10);
+            if (operation < 5) assertEquals(expected.add(key), tree.add(key), "add " + key);
+            else if (operation < 9) assertEquals(expected.remove(key), tree.remove(key), "remove " + key);
+            else assertEquals(expected.contains(key) ? key : null, tree.lookup(key));
+        }
+        List<Comparable> values = new ArrayList<>();
+        tree.forEach(values::add);
+        assertEquals(new ArrayList<>(expected), values);
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+        assertTrue(heightOf(tree.getRoot()) <= Math.log(expected.size()) / Math.log(1.5) + 1);
+
+        int lo = 1000;
+        int hi = 3999;
+        int inRange = expected.subSet(lo, true, hi, true).size();
+        assertEquals(inRange, tree.deleteRange(lo, hi));
+        expected.subSet(lo, true, hi, true).clear();
+        assertEquals(expected.size(), tree.size());
+        assertTrue(heightOf(tree.getRoot()) <= Math.log(expected.size()) / Math.log(1.5) + 1);
+    }
+
+    private static int heightOf(Node n) {
+        return n == null ? 0 : 1 + Math.max(heightOf(n.getLeft()), heightOf(n.getRight()));
+    }
+}
@@ -0,0 +1,90 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.exceptions.TreeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static de.hsfd.binary_tree.services.BSTreeTest.isBinarySearchTree;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SplayTreeTest {
+
+    SplayTree tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new SplayTree();
+    }
+
+    @Test
+    void insertedNodeBecomesRoot() {
+        tree.insert(10);
+        tree.insert(20);
+        tree.insert(5);
+        assertEquals(5, tree.getRoot().getData());
+        assertEquals(10, tree.getRoot().getRight().getData());
+        assertThrows(TreeException.class, () -> tree.insert(10), "Adding the duplicate values should be prohibited.");
+    }
+
+    @Test
+    void lookupSplaysFoundNode() throws IllegalAccessException {
+        for (int i = 1; i <= 10; i++) tree.insert(i);
+        assertEquals(3, tree.lookup(3));
+        assertEquals(3, tree.getRoot().getData());
+        assertNull(tree.getRoot().getParent());
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+    }
+
+    @Test
+    void lookupMissSplaysLastVisitedNode() {
+        for (int i = 10; i <= 50; i += 10) tree.insert(i);
+        assertNull(tree.lookup(25));
+        Comparable root = tree.getRoot().getData();
+        assertTrue(root.equals(20) || root.equals(30), "The neighbour of the missing value should be the new root.");
+    }
+
+    @Test
+    void deleteJoinsBothSubtrees() throws IllegalAccessException {
+        for (int i = 1; i <= 7; i++) tree.insert(i);
+        tree.delete(4);
+        assertEquals(3, tree.getRoot().getData(), "The biggest value of the left subtree should become the root.");
+        assertNull(tree.lookup(4));
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+
+        tree.delete(1);
+        tree.delete(7);
+        assertThrows(TreeException.class, () -> tree.delete(4));
+        assertEquals("2 3 5 6", Node.inorder(tree.getRoot()));
+    }
+
+    @Test
+    void deleteLastNode() {
+        tree.insert(1);
+        tree.delete(1);
+        assertNull(tree.getRoot());
+    }
+
+    @Test
+    void randomizedAgainstTreeSet() throws IllegalAccessException {
+        Random random = new Random(28);
+        TreeSet<Integer> oracle = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(300);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    if (oracle.add(value)) tree.insert(value);
+                }
+                case 1 -> {
+                    if (oracle.remove(value)) tree.delete(value);
+                }
+                default -> assertEquals(oracle.contains(value) ? value : null, tree.lookup(value));
+            }
+        }
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+        assertEquals(oracle.stream().map(String::valueOf).reduce((a, b) -> a + " " + b).orElse(""),
+                Node.inorder(tree.getRoot()));
+    }
+}
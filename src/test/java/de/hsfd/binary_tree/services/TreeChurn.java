@@ -0,0 +1,96 @@
+package de.hsfd.binary_tree.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The random churn the tests of the tree features share: insertions and deletions of {@link Integer} keys, checked
+ * against a {@link TreeMap} of the expected counts (always 1 outside of the multiset mode).
+ */
+@SuppressWarnings("rawtypes")
+final class TreeChurn {
+
+    /**
+     * Every balancing strategy of the {@link BinaryTree}.
+     */
+    static final List<Supplier<BinaryTree>> TREES = List.of(AVLTree::new, RBTree::new, WAVLTree::new,
+            SplayTree::new, BSTree::new, ScapegoatTree::new);
+
+    /**
+     * {@link TreeChurn#TREES} and the balancing strategies that support the multiset mode.
+     */
+    static final List<Supplier<BinaryTree>> TREES_AND_MULTISETS = List.of(AVLTree::new, RBTree::new, WAVLTree::new,
+            SplayTree::new, BSTree::new, ScapegoatTree::new, () -> new AVLTree(true), () -> new RBTree(true));
+
+    private TreeChurn() {
+    }
+
+    /**
+     * Applies random insertions and deletions of the keys {@code [0, keys)}, and checks every result against the
+     * expected counts, which are updated along.
+     *
+     * @param insertPercent the share of the insertions, the rest are deletions
+     * @param afterEach     called with the index of every operation after it, e.g. for the checks of a test
+     */
+    static void churn(BinaryTree tree, TreeMap<Integer, Integer> expected, Random random, int operations, int keys,
+                      int insertPercent, IntConsumer afterEach) {
+        String name = tree.getClass().getSimpleName();
+        for (int i = 0; i < operations; i++) {
+            int key = random.nextInt(keys);
+            if (random.nextInt(100) < insertPercent) {
+                boolean added = tree.add(key);
+                if (tree.isMultiset()) {
+                    expected.merge(key, 1, Integer::sum);
+                } else {
+                    assertEquals(expected.putIfAbsent(key, 1) == null, added, name + " add " + key);
+                }
+            } else {
+                assertEquals(expected.containsKey(key), tree.remove(key), name + " remove " + key);
+                expected.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+            }
+            afterEach.accept(i);
+        }
+    }
+
+    /**
+     * Deletes {@code [lo, hi]} from the tree and the expected counts, and checks the number of deleted values.
+     */
+    static void deleteRange(BinaryTree tree, TreeMap<Integer, Integer> expected, int lo, int hi) {
+        NavigableMap<Integer, Integer> deleted = expected.subMap(lo, true, hi, true);
+        assertEquals(deleted.values().stream().mapToInt(count -> count).sum(), tree.deleteRange(lo, hi),
+                tree.getClass().getSimpleName() + " [" + lo + ", " + hi + "]");
+        deleted.clear();
+    }
+
+    /**
+     * Checks that the tree holds exactly the expected values in ascending order.
+     */
+    static void assertValues(BinaryTree tree, TreeMap<Integer, Integer> expected) {
+        List<Comparable> values = new ArrayList<>();
+        expected.forEach((value, count) -> {
+            for (int c = 0; c < count; c++) values.add(value);
+        });
+        String name = tree.getClass().getSimpleName();
+        assertEquals(values, tree.range(Integer.MIN_VALUE, Integer.MAX_VALUE), name);
+        assertEquals(values.size(), tree.size(), name);
+    }
+
+    /**
+     * @return the sum of the expected values in {@code [lo, hi]}, every one as often as it is counted
+     */
+    static long sum(TreeMap<Integer, Integer> expected, int lo, int hi) {
+        long sum = 0;
+        for (Map.Entry<Integer, Integer> entry : expected.subMap(lo, true, hi, true).entrySet()) {
+            sum += (long) entry.getKey() * entry.getValue();
+        }
+        return sum;
+    }
+}
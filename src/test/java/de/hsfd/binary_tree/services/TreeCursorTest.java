@@ -0,0 +1,63 @@
+package de.hsfd.binary_tree.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeCursorTest {
+
+    @Test
+    void lookupOnEmptyTree() {
+        TreeCursor cursor = new AVLTree().cursor();
+        assertNull(cursor.lookup(10));
+        assertNull(cursor.getFinger());
+    }
+
+    @Test
+    void fingerPointsToLastVisitedNode() {
+        RBTree tree = new RBTree();
+        for (int i = 1; i <= 15; i++) tree.insert(i);
+        TreeCursor cursor = tree.cursor();
+
+        assertEquals(7, cursor.lookup(7));
+        assertEquals(7, cursor.getFinger().getData());
+        assertEquals(8, cursor.lookup(8));
+        assertEquals(8, cursor.getFinger().getData());
+        assertNull(cursor.lookup(100));
+        assertEquals(15, cursor.getFinger().getData(), "A miss should leave the finger at the end of the search path.");
+    }
+
+    @Test
+    void clusteredLookupsMatchRootLookups() {
+        Random random = new Random(27);
+        AVLTree tree = new AVLTree();
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt(5000);
+            if (tree.lookup(value) == null) tree.insert(value);
+        }
+        TreeCursor cursor = tree.cursor();
+        int key = 2500;
+        for (int i = 0; i < 10_000; i++) {
+            key += random.nextInt(21) - 10;
+            assertEquals(tree.lookup(key), cursor.lookup(key));
+        }
+    }
+
+    @Test
+    void cursorStaysValidAfterDeletion() {
+        RBTree tree = new RBTree();
+        for (int i = 1; i <= 31; i++) tree.insert(i);
+        TreeCursor cursor = tree.cursor();
+
+        assertEquals(5, cursor.lookup(5));
+        tree.delete(5);
+        tree.delete(6);
+        assertNull(cursor.lookup(5), "The finger has been deleted, the cursor should restart from the root.");
+        assertEquals(7, cursor.lookup(7));
+        for (int i = 1; i <= 31; i++) {
+            assertEquals(tree.lookup(i), cursor.lookup(i));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.concurrent.LockedTree;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeSnapshotTest {
+
+    @Test
+    void theSnapshotHasTheSameStructure() {
+        RBTree tree = new RBTree();
+        assertNull(tree.snapshot().render());
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) tree.add(random.nextInt(10_000));
+        for (int i = 0; i < 1000; i++) tree.remove(random.nextInt(10_000));
+
+        TreeSnapshot snapshot = tree.snapshot();
+        String expected = tree.toDOT();
+        assertEquals(expected, snapshot.toDOT());
+        assertEquals(tree.size(), snapshot.size());
+        assertEquals(Node.inorder(tree.getRoot()), Node.inorder(snapshot.render()));
+
+        // later changes do not reach the snapshot
+        for (int i = 0; i < 1000; i++) tree.add(random.nextInt(10_000));
+        assertEquals(expected, snapshot.toDOT());
+
+        // a multiset has fewer nodes than values
+        AVLTree multiset = new AVLTree(true);
+        for (int i = 0; i < 100; i++) multiset.add(i % 10);
+        assertEquals(10, multiset.snapshot().size());
+        assertEquals(multiset.toDOT(), multiset.snapshot().toDOT());
+    }
+
+    @Test
+    void theExportRunsAfterTheTreeHasChanged() throws Exception {
+        Path file = Files.createTempDirectory("export").resolve("nested/tree.dot");
+        AVLTree tree = new AVLTree();
+        for (int i = 0; i < 100; i++) tree.add(i);
+        String expected = tree.toDOT();
+
+        // the executor only starts the export after the tree has changed
+        CountDownLatch changed = new CountDownLatch(1);
+        Executor delayed = task -> new Thread(() -> {
+            try {
+                changed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            task.run();
+        }).start();
+        CompletableFuture<Path> export = tree.exportDOTAsync(file.toString(), delayed);
+        for (int i = 0; i < 50; i++) tree.remove(i);
+        changed.countDown();
+
+        assertEquals(file, export.get());
+        assertEquals(expected, Files.readString(file));
+
+        // the default executor
+        assertEquals(tree.toDOT(), Files.readString(tree.exportDOTAsync(file.toString()).get()));
+    }
+
+    @Test
+    void aLockedTreeIsOnlyLockedForTheSnapshot() throws Exception {
+        Path file = Files.createTempFile("locked", ".dot");
+        RBTree tree = new RBTree();
+        LockedTree locked = new LockedTree(tree);
+        for (int i = 0; i < 1000; i++) locked.add(i);
+        String expected = tree.toDOT();
+        CompletableFuture<Path> export = locked.exportDOTAsync(file.toString());
+        locked.add(1000);
+        assertEquals(expected, Files.readString(export.get()));
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> new LockedTree(new BPlusTree()).exportDOTAsync(file.toString()));
+        // a directory cannot be written as a file
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> tree.exportDOTAsync(file.getParent().toString()).get());
+        assertTrue(failure.getCause() instanceof IOException, failure.getCause().toString());
+    }
+}
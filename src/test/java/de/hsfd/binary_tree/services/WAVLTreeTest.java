@@ -0,0 +1,135 @@
+package de.hsfd.binary_tree.services;
+
+import de.hsfd.binary_tree.services.exceptions.TreeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static de.hsfd.binary_tree.services.BSTreeTest.isBinarySearchTree;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WAVLTreeTest {
+
+    WAVLTree tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new WAVLTree();
+    }
+
+    @Test
+    void insert_singleRotation() {
+        tree.insert(10);
+        tree.insert(20);
+        tree.insert(30);
+        assertEquals(20, tree.getRoot().getData());
+        assertEquals(10, tree.getRoot().getLeft().getData());
+        assertEquals(30, tree.getRoot().getRight().getData());
+        assertValidRanks(tree.getRoot());
+    }
+
+    @Test
+    void insert_doubleRotation() {
+        tree.insert(30);
+        tree.insert(10);
+        tree.insert(20);
+        assertEquals(20, tree.getRoot().getData());
+        assertEquals(10, tree.getRoot().getLeft().getData());
+        assertEquals(30, tree.getRoot().getRight().getData());
+        assertValidRanks(tree.getRoot());
+        assertThrows(TreeException.class, () -> tree.insert(20), "Adding the duplicate values should be prohibited.");
+    }
+
+    @Test
+    void insertOnlyHasTheShapeOfAnAVLTree() {
+        for (int i = 1; i <= 1000; i++) tree.insert(i);
+        assertTrue(isAVLBalanced(tree.getRoot()));
+        assertValidRanks(tree.getRoot());
+    }
+
+    @Test
+    void delete_cases() throws IllegalAccessException {
+        for (int i = 1; i <= 7; i++) tree.insert(i);
+        tree.delete(1); // leaf
+        tree.delete(2); // parent becomes a leaf
+        tree.delete(4); // root with two children
+        assertEquals("3 5 6 7", Node.inorder(tree.getRoot()));
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+        assertValidRanks(tree.getRoot());
+        assertThrows(TreeException.class, () -> tree.delete(4));
+
+        for (int i : new int[]{3, 5, 6, 7}) tree.delete(i);
+        assertNull(tree.getRoot());
+    }
+
+    @Test
+    void randomizedDeleteHeavyWorkload() throws IllegalAccessException {
+        Random random = new Random(29);
+        TreeSet<Integer> oracle = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(2000);
+            if (random.nextInt(10) < 4) {
+                if (oracle.remove(value)) tree.delete(value);
+            } else if (oracle.add(value)) {
+                tree.insert(value);
+            }
+            if (i % 1000 == 0) assertValidRanks(tree.getRoot());
+        }
+        assertValidRanks(tree.getRoot());
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(oracle.contains(i) ? i : null, tree.lookup(i));
+        }
+        assertTrue(height(tree.getRoot()) <= 2 * (Math.log(oracle.size() + 1) / Math.log(2)),
+                "The height should stay below the red-black bound.");
+    }
+
+    @Test
+    void deleteInRandomOrder() {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 500; i++) values.add(i);
+        Collections.shuffle(values, new Random(29));
+        values.forEach(tree::insert);
+        Collections.shuffle(values, new Random(92));
+        for (int value : values) {
+            tree.delete(value);
+            assertValidRanks(tree.getRoot());
+        }
+        assertNull(tree.getRoot());
+    }
+
+    /**
+     * Reconstructs the ranks from the stored parities: a missing node has the rank -1,
+     * equal parities are a rank difference of 2 and different parities a rank difference of 1.
+     * Both children must lead to the same rank, its parity must match, and leaves must have the rank 0.
+     */
+    private static int assertValidRanks(Node node) {
+        if (node == null) return -1;
+        int fromLeft = assertValidRanks(node.getLeft()) + rankDifference(node, node.getLeft());
+        int fromRight = assertValidRanks(node.getRight()) + rankDifference(node, node.getRight());
+        assertEquals(fromLeft, fromRight, "Both children should lead to the same rank of " + node.getData());
+        assertEquals(fromLeft % 2 == 1, node.getRankParity(), "The parity should match the rank of " + node.getData());
+        if (node.isLeaf()) assertEquals(0, fromLeft, "A leaf should have the rank 0: " + node.getData());
+        return fromLeft;
+    }
+
+    private static int rankDifference(Node parent, Node child) {
+        boolean childParity = child == null || child.getRankParity();
+        return parent.getRankParity() == childParity ? 2 : 1;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : Math.max(height(node.getLeft()), height(node.getRight())) + 1;
+    }
+
+    private static boolean isAVLBalanced(Node node) {
+        if (node == null) return true;
+        return Math.abs(height(node.getLeft()) - height(node.getRight())) <= 1
+                && isAVLBalanced(node.getLeft()) && isAVLBalanced(node.getRight());
+    }
+}
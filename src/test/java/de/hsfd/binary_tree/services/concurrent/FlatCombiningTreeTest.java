@@ -0,0 +1,98 @@
+package de.hsfd.binary_tree.services.concurrent;
+
+import de.hsfd.binary_tree.services.AVLTree;
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.SearchTree;
+import de.hsfd.binary_tree.services.exceptions.TreeException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatCombiningTreeTest {
+
+    @Test
+    void singleThreadSameAsTheTree() {
+        FlatCombiningTree tree = new FlatCombiningTree(new AVLTree());
+        assertTrue(tree.add(10));
+        assertTrue(tree.add(5));
+        assertFalse(tree.add(10));
+        assertEquals(5, tree.lookup(5));
+        assertNull(tree.lookup(7));
+        assertTrue(tree.remove(5));
+        assertFalse(tree.contains(5));
+        assertEquals(1, tree.size());
+        assertThrows(TreeException.class, () -> tree.insert(10), "The exception should reach the calling thread.");
+    }
+
+    @Test
+    void anErrorReachesTheCallingThreadOnly() throws Exception {
+        RBTree failing = new RBTree() {
+            @Override
+            public boolean add(Comparable data) {
+                if (data.equals(-1)) throw new StackOverflowError("rejected");
+                return super.add(data);
+            }
+        };
+        FlatCombiningTree tree = new FlatCombiningTree(failing);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        // every request is applied exactly once, even if another one of the same pass fails
+                        assertTrue(tree.add(offset + i));
+                        assertThrows(StackOverflowError.class, () -> tree.add(-1));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        }
+        assertEquals(8000, tree.size());
+    }
+
+    @Test
+    void concurrentOperationsOnPlatformThreads() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            runConcurrently(new FlatCombiningTree(new RBTree()), executor, 8);
+        }
+    }
+
+    @Test
+    void concurrentOperationsOnVirtualThreads() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            runConcurrently(new FlatCombiningTree(new RBTree()), executor, 200);
+        }
+    }
+
+    @Test
+    void lockedTreeBaseline() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            runConcurrently(new LockedTree(new RBTree()), executor, 8);
+        }
+    }
+
+    /**
+     * Every task owns its own values: it inserts them, deletes every second one and looks all of them up again.
+     */
+    private static void runConcurrently(SearchTree tree, ExecutorService executor, int tasks) throws Exception {
+        int perTask = 2_000;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < tasks; t++) {
+            int offset = t * perTask;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perTask; i++) assertTrue(tree.add(offset + i));
+                for (int i = 0; i < perTask; i += 2) assertTrue(tree.remove(offset + i));
+                for (int i = 0; i < perTask; i++) assertEquals(i % 2 == 1, tree.contains(offset + i));
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        assertEquals(tasks * perTask / 2, tree.size());
+    }
+}
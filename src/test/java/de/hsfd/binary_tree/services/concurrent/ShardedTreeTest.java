@@ -0,0 +1,101 @@
+package de.hsfd.binary_tree.services.concurrent;
+
+import de.hsfd.binary_tree.services.AVLTree;
+import de.hsfd.binary_tree.services.RBTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+class ShardedTreeTest {
+
+    @Test
+    void boundariesFromSample() {
+        List<Integer> sample = IntStream.range(0, 1000).boxed().toList();
+        ShardedTree tree = new ShardedTree(RBTree::new, 4, sample);
+        assertEquals(4, tree.shards());
+
+        for (int i = 999; i >= 0; i -= 3) assertTrue(tree.add(i));
+        assertFalse(tree.add(999));
+        assertTrue(tree.contains(501));
+        assertFalse(tree.contains(500));
+        assertTrue(tree.remove(501));
+        assertFalse(tree.remove(501));
+        assertEquals(333, tree.size());
+
+        // the range crosses the boundaries at 250 and 500
+        assertEquals(List.of(243, 246, 249, 252, 255), tree.range(241, 256));
+        assertEquals(List.of(495, 498, 504, 507), tree.range(495, 507));
+    }
+
+    @Test
+    void skewedShardsAreRebalancedOnline() {
+        ShardedTree tree = new ShardedTree(AVLTree::new, 8, List.of(1_000_000, 2_000_000, 3_000_000));
+        TreeSet<Integer> expected = new TreeSet<>();
+        // every key falls into the first shard of the sample
+        for (int i = 0; i < 50_000; i++) {
+            tree.add(i * 7 % 50_000);
+            expected.add(i * 7 % 50_000);
+        }
+        assertEquals(8, tree.shards());
+
+        List<Comparable> values = new ArrayList<>();
+        tree.forEach(values::add);
+        assertEquals(new ArrayList<>(expected), values, "The iterator should stitch the shards in order.");
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected.subSet(20_000, true, 20_100, true)), tree.range(20_000, 20_100));
+    }
+
+    @Test
+    void aSkewedShardIsSplitAtTheConfiguredCount() {
+        ShardedTree tree = new ShardedTree(RBTree::new, 4, List.of(1_000_000, 2_000_000, 3_000_000));
+        assertEquals(4, tree.shards());
+        // every key falls into the first shard of the sample
+        for (int i = 0; i < 50_000; i++) tree.add(i * 7 % 50_000);
+        assertEquals(4, tree.shards());
+
+        int[] sizes = tree.shardSizes();
+        int largest = Arrays.stream(sizes).max().orElseThrow();
+        assertTrue(largest <= ShardedTree.SKEW_FACTOR * 50_000 / 4, Arrays.toString(sizes));
+        assertEquals(50_000, Arrays.stream(sizes).sum());
+        assertEquals(IntStream.range(0, 50_000).boxed().toList(), tree.range(0, 50_000));
+    }
+
+    @Test
+    void concurrentWritesToDifferentRanges() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ShardedTree tree = new ShardedTree(RBTree::new, threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) assertTrue(tree.add(offset + i));
+                    for (int i = 0; i < perThread; i += 2) assertTrue(tree.remove(offset + i));
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * perThread / 2, tree.size());
+        int previous = -1;
+        for (Comparable value : tree) {
+            assertEquals(previous + 2, value);
+            previous = (int) value;
+        }
+        assertEquals(threads * perThread - 1, previous);
+    }
+}
@@ -0,0 +1,157 @@
+package de.hsfd.binary_tree.services.replication;
+
+import de.hsfd.binary_tree.services.AVLTree;
+import de.hsfd.binary_tree.services.RBTree;
+import de.hsfd.binary_tree.services.WAVLTree;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+class ReplicationTest {
+
+    @Test
+    void replicasFollowThePrimary() throws IOException {
+        ReplicatedTree primary = new ReplicatedTree(new RBTree(), KeyCodec.INTEGER, 100);
+        QueueChannel first = new QueueChannel();
+        QueueChannel second = new QueueChannel();
+        primary.attach(first);
+        primary.attach(second);
+        ReadReplica avl = new ReadReplica(AVLTree::new, KeyCodec.INTEGER, first);
+        ReadReplica wavl = new ReadReplica(WAVLTree::new, KeyCodec.INTEGER, second);
+
+        Random random = new Random(50);
+        long logged = 0;
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(2000);
+            if (random.nextInt(3) > 0 ? primary.add(key) : primary.remove(key)) logged++;
+        }
+        assertEquals(logged, primary.sequence());
+        // the last batch is not full yet
+        assertTrue(avl.catchUp() < logged);
+        assertEquals(logged, primary.flush());
+        assertEquals(logged, avl.catchUp());
+        assertEquals(logged, wavl.catchUp());
+
+        List<Comparable> expected = primary.range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        assertEquals(expected, avl.range(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(expected, wavl.range(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(primary.size(), avl.size());
+        assertThrows(UnsupportedOperationException.class, () -> avl.add(1));
+
+        // a value the codec cannot write reaches neither the tree nor the log
+        assertThrows(ClassCastException.class, () -> primary.add("x"));
+        assertEquals(logged, primary.sequence());
+        primary.add(5000);
+        primary.close();
+        // the last batch is applied before the end of the log is reported
+        assertThrows(EOFException.class, avl::catchUp);
+        assertEquals(logged + 1, avl.appliedSequence());
+        assertNotNull(avl.lookup(5000));
+    }
+
+    @Test
+    void aLateReplicaStartsFromASnapshot() throws IOException {
+        ReplicatedTree primary = new ReplicatedTree(new AVLTree(true), KeyCodec.LONG, 16);
+        for (long i = 0; i < 1000; i++) primary.add(i % 100);
+        for (long i = 0; i < 50; i++) primary.remove(i);
+
+        QueueChannel channel = new QueueChannel();
+        primary.attach(channel);
+        ReadReplica replica = new ReadReplica(() -> new AVLTree(true), KeyCodec.LONG, channel);
+        assertEquals(1050, replica.catchUp());
+        assertEquals(950, replica.size());
+
+        primary.remove(99L);
+        primary.flush();
+        replica.catchUp();
+        assertEquals(primary.range(0L, 100L), replica.range(0L, 100L));
+    }
+
+    @Test
+    void aFailingOperationIsNotLogged() throws IOException {
+        RBTree failing = new RBTree() {
+            @Override
+            public boolean add(Comparable data) {
+                if (data.equals(13)) throw new IllegalStateException("rejected");
+                return super.add(data);
+            }
+        };
+        ReplicatedTree primary = new ReplicatedTree(failing, KeyCodec.INTEGER, 3);
+        QueueChannel channel = new QueueChannel();
+        primary.attach(channel);
+        ReadReplica replica = new ReadReplica(RBTree::new, KeyCodec.INTEGER, channel);
+
+        primary.add(1);
+        assertThrows(IllegalStateException.class, () -> primary.add(13));
+        primary.add(2);
+        primary.add(3);
+        assertEquals(3, replica.catchUp());
+        assertEquals(List.of(1, 2, 3), replica.range(Integer.MIN_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void aGapInTheLogIsRejected() throws IOException, InterruptedException {
+        ReplicatedTree primary = new ReplicatedTree(new RBTree(), KeyCodec.STRING, 1);
+        QueueChannel channel = new QueueChannel();
+        primary.attach(channel);
+        primary.add("a");
+        primary.add("b");
+        // the snapshot and the first operation are lost
+        channel.take();
+        channel.take();
+        ReadReplica replica = new ReadReplica(RBTree::new, KeyCodec.STRING, channel);
+        IOException e = assertThrows(IOException.class, replica::catchUp);
+        assertTrue(e.getMessage().contains("starts at 2"), e.getMessage());
+        assertEquals(0, replica.appliedSequence());
+    }
+
+    @Test
+    void aReplicaReadsItsOwnWritesOverALoopbackSocket() throws Exception {
+        ReplicatedTree primary = new ReplicatedTree(new RBTree(), KeyCodec.INTEGER);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Future<ReadReplica> connected = executor.submit(
+                    () -> new ReadReplica(RBTree::new, KeyCodec.INTEGER, StreamChannel.connect(server.getLocalPort())));
+            primary.attach(StreamChannel.accept(server));
+            ReadReplica replica = connected.get();
+
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 100; i++) primary.add(round * 100 + i);
+                long written = primary.flush();
+                int last = round * 100 + 99;
+                // the worker thread of the replica waits for the writes, then reads them
+                assertEquals(last, executor.submit(() -> {
+                    replica.awaitSequence(written);
+                    return replica.lookup(last);
+                }).get());
+            }
+            assertEquals(1, primary.followers());
+            primary.close();
+            CompletableFuture<Throwable> end = new CompletableFuture<>();
+            executor.submit(() -> {
+                try {
+                    replica.awaitSequence(Long.MAX_VALUE);
+                } catch (Exception e) {
+                    end.complete(e);
+                }
+            });
+            assertTrue(end.get() instanceof EOFException, String.valueOf(end.get()));
+            assertEquals(2000, replica.size());
+            assertEquals(2000, replica.appliedSequence());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package de.hsfd.binary_tree.services.wrapper;
+
+import de.hsfd.binary_tree.services.RBTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizedKeyTest {
+
+    @Test
+    void intsAndLongsKeepTheirOrder() {
+        Random random = new Random(39);
+        long[] specials = {Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        for (int i = 0; i < 10_000; i++) {
+            long a = i < specials.length ? specials[i] : random.nextLong();
+            long b = i < specials.length ? specials[(i + 1) % specials.length] : random.nextLong();
+            assertEquals(Long.signum(Long.compare(a, b)),
+                    Integer.signum(NormalizedKey.ofLong(a).compareTo(NormalizedKey.ofLong(b))), a + " " + b);
+            assertEquals(Long.signum(Integer.compare((int) a, (int) b)),
+                    Integer.signum(NormalizedKey.ofInt((int) a).compareTo(NormalizedKey.ofInt((int) b))), a + " " + b);
+        }
+    }
+
+    @Test
+    void stringsKeepTheirOrder() {
+        List<String> values = List.of("", "a", "a\0", "a\0\0", "a\0b", "ab", "abcdefgh", "abcdefghi", "abcdefgh\0",
+                "abcdefgi", "b", "ä", "€", "zzzzzzzzzzzzzzzzzzzzzzzzzz");
+        for (String a : values) {
+            for (String b : values) {
+                assertEquals(Integer.signum(a.compareTo(b)),
+                        Integer.signum(NormalizedKey.ofString(a).compareTo(NormalizedKey.ofString(b))),
+                        "'" + a + "' '" + b + "'");
+            }
+        }
+        assertEquals(NormalizedKey.ofString("abcdefghij"), NormalizedKey.ofString("abcdefghij"));
+        assertEquals(NormalizedKey.ofString("abcdefghij").hashCode(), NormalizedKey.ofString("abcdefghij").hashCode());
+    }
+
+    @Test
+    void compositesCompareComponentByComponent() {
+        record Pair(String name, long id) {
+        }
+        Comparator<Pair> expected = Comparator.comparing(Pair::name).thenComparingLong(Pair::id);
+        Random random = new Random(39);
+        String[] names = {"", "a", "ab", "a\0", "abcdefgh", "abcdefghijk", "b"};
+        for (int i = 0; i < 10_000; i++) {
+            Pair a = new Pair(names[random.nextInt(names.length)], random.nextInt(5) - 2);
+            Pair b = new Pair(names[random.nextInt(names.length)], random.nextInt(5) - 2);
+            NormalizedKey keyA = NormalizedKey.builder().addString(a.name()).addLong(a.id()).build();
+            NormalizedKey keyB = NormalizedKey.builder().addString(b.name()).addLong(b.id()).build();
+            assertEquals(Integer.signum(expected.compare(a, b)), Integer.signum(keyA.compareTo(keyB)), a + " " + b);
+        }
+        assertEquals("[abc, 7]", NormalizedKey.builder().addString("abc").addInt(7).build().toString());
+    }
+
+    @Test
+    void lookupInATree() {
+        RBTree tree = new RBTree();
+        for (int i = 0; i < 1000; i++) {
+            tree.add(NormalizedKey.builder().addString("user-" + i % 10).addInt(i).build());
+        }
+        NormalizedKey key = NormalizedKey.builder().addString("user-3").addInt(403).build();
+        assertEquals(key, tree.lookup(key));
+        assertNull(tree.lookup(NormalizedKey.builder().addString("user-3").addInt(404).build()));
+        assertEquals(100, tree.range(NormalizedKey.builder().addString("user-3").addInt(Integer.MIN_VALUE).build(),
+                NormalizedKey.builder().addString("user-3").addInt(Integer.MAX_VALUE).build()).size());
+    }
+}